@@ -0,0 +1,82 @@
+package org.newdawn.spaceinvaders;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.newdawn.spaceinvaders.headless.HeadlessGameWindow;
+
+/**
+ * Utilities for setting up games to benchmark. All games are created
+ * with the headless backend so that no display is needed, its sprites
+ * stand in for the real ones with the same sizes.
+ */
+public class BenchmarkGames {
+	/**
+	 * Create a game that has been initialised but isn't running
+	 *
+	 * @return The newly created game
+	 */
+	public static Game headlessGame() {
+		ResourceFactory.get().setRenderingType(ResourceFactory.HEADLESS);
+		((HeadlessGameWindow) ResourceFactory.get().getGameWindow()).setMaxFrames(0);
+
+		return new Game(ResourceFactory.HEADLESS);
+	}
+
+	/**
+	 * Create a wave of aliens laid out in the same way as the game does,
+	 * with more columns as the wave gets bigger. The aliens share a
+	 * formation of their own.
+	 *
+	 * @param game The game in which the aliens exist
+	 * @param count The number of aliens to create
+	 * @return The list of created aliens
+	 */
+	public static List<Entity> alienWave(Game game,int count) {
+		List<Entity> aliens = new ArrayList<>(count);
+		int columns = 12 * (int) Math.ceil(Math.sqrt(count / 60.0));
+		int rows = Math.max(1,(count + columns - 1) / columns);
+		AlienFormation formation = new AlienFormation(100,50,columns,rows,50,30,-75);
+
+		for (int i=0;i<count;i++) {
+			aliens.add(new AlienEntity(game,formation,i % columns,i / columns));
+		}
+
+		return aliens;
+	}
+
+	/**
+	 * Create a single alien at a given location, in a formation of its own
+	 *
+	 * @param game The game in which the alien exists
+	 * @param x The x location of the alien
+	 * @param y The y location of the alien
+	 * @return The created alien
+	 */
+	public static Entity alien(Game game,int x,int y) {
+		return new AlienEntity(game,new AlienFormation(x,y,1,1,50,30,-75),0,0);
+	}
+
+	/**
+	 * Create the entities of a busy frame: the ship, a wave of aliens and
+	 * a shot for every twentieth alien, each shot placed over an alien.
+	 *
+	 * @param game The game in which the entities exist
+	 * @param count The total number of entities to create
+	 * @return The list of created entities
+	 */
+	public static List<Entity> busyFrame(Game game,int count) {
+		int shots = count / 20;
+		List<Entity> entities = new ArrayList<>(count);
+
+		entities.add(new ShipEntity(game,"sprites/ship.gif",370,550));
+		List<Entity> aliens = alienWave(game,count - shots - 1);
+		entities.addAll(aliens);
+		for (int i=0;i<shots;i++) {
+			Entity alien = aliens.get((i * 20) % aliens.size());
+			entities.add(new ShotEntity(game,"sprites/shot.gif",alien.getX()+10,alien.getY()+5));
+		}
+
+		return entities;
+	}
+}
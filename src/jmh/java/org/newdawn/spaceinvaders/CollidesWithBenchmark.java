@@ -0,0 +1,156 @@
+package org.newdawn.spaceinvaders;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.newdawn.spaceinvaders.java2d.Java2DSprite;
+import org.newdawn.spaceinvaders.util.CollisionMask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the collision check on the cached bounds of entities with the
+ * check it replaced, which filled in a pair of rectangles from the entity
+ * locations and sprite sizes on every call. The pixel perfect narrow phase,
+ * run once the bounds overlap, is measured on the sprite masks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CollidesWithBenchmark {
+	/** The type of sprite the rectangle check reads sizes from, "java2d" sprites ask the image for their size */
+	@Param({"headless", "java2d"})
+	private String sprites;
+
+	/** An alien to collide */
+	private Entity alien;
+	/** A shot lying over the alien */
+	private Entity hit;
+	/** A shot nowhere near the alien */
+	private Entity miss;
+	/** The collision mask of the alien */
+	private CollisionMask alienMask;
+	/** The collision mask of the shots */
+	private CollisionMask shotMask;
+	/** The rectangle used for the first entity by the old check */
+	private Rectangle me = new Rectangle();
+	/** The rectangle used for the second entity by the old check */
+	private Rectangle him = new Rectangle();
+
+	/**
+	 * Create the entities to benchmark
+	 */
+	@Setup
+	public void setup() {
+		Game game = BenchmarkGames.headlessGame();
+
+		alien = BenchmarkGames.alien(game,400,50);
+		hit = new ShotEntity(game,"sprites/shot.gif",410,55);
+		miss = new ShotEntity(game,"sprites/shot.gif",100,500);
+		alienMask = alien.sprite.getCollisionMask();
+		shotMask = hit.sprite.getCollisionMask();
+
+		if ("java2d".equals(sprites)) {
+			alien.sprite = imageSprite(alien.sprite);
+			hit.sprite = imageSprite(hit.sprite);
+			miss.sprite = imageSprite(miss.sprite);
+		}
+	}
+
+	/**
+	 * Check a pair of entities that collide using the cached bounds
+	 *
+	 * @return The result of the check
+	 */
+	@Benchmark
+	public boolean boundsHit() {
+		return alien.collidesWith(hit);
+	}
+
+	/**
+	 * Check a pair of entities that don't collide using the cached bounds
+	 *
+	 * @return The result of the check
+	 */
+	@Benchmark
+	public boolean boundsMiss() {
+		return alien.collidesWith(miss);
+	}
+
+	/**
+	 * Check a pair of entities that collide using rectangles
+	 *
+	 * @return The result of the check
+	 */
+	@Benchmark
+	public boolean rectangleHit() {
+		return rectangleCollides(alien,hit);
+	}
+
+	/**
+	 * Check a pair of entities that don't collide using rectangles
+	 *
+	 * @return The result of the check
+	 */
+	@Benchmark
+	public boolean rectangleMiss() {
+		return rectangleCollides(alien,miss);
+	}
+
+	/**
+	 * Check the masks of a pair of entities whose opaque pixels overlap
+	 *
+	 * @return The result of the check
+	 */
+	@Benchmark
+	public boolean maskHit() {
+		return alienMask.overlaps(shotMask,hit.getX()-alien.getX(),hit.getY()-alien.getY());
+	}
+
+	/**
+	 * Check the masks of a shot lying in the transparent corner of an alien
+	 *
+	 * @return The result of the check
+	 */
+	@Benchmark
+	public boolean maskCorner() {
+		return alienMask.overlaps(shotMask,alienMask.getWidth()-2,-shotMask.getHeight()+2);
+	}
+
+	/**
+	 * The collision check as it was before entities cached their bounds
+	 *
+	 * @param entity The entity to check
+	 * @param other The other entity to check collision against
+	 * @return True if the entities collide with each other
+	 */
+	private boolean rectangleCollides(Entity entity,Entity other) {
+		me.setBounds(entity.getX(),entity.getY(),entity.sprite.getWidth(),entity.sprite.getHeight());
+		him.setBounds(other.getX(),other.getY(),other.sprite.getWidth(),other.sprite.getHeight());
+
+		return me.intersects(him);
+	}
+
+	/**
+	 * Create a Java 2D sprite the same size as another sprite
+	 *
+	 * @param sprite The sprite to match the size of
+	 * @return The new sprite
+	 */
+	private static Sprite imageSprite(Sprite sprite) {
+		return new Java2DSprite(null,new BufferedImage(sprite.getWidth(),sprite.getHeight(),BufferedImage.TYPE_INT_ARGB));
+	}
+}
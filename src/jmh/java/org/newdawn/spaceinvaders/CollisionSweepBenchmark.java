@@ -0,0 +1,77 @@
+package org.newdawn.spaceinvaders;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the collision sweep run every loop, using the grid the
+ * game uses and the brute force comparison it replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class CollisionSweepBenchmark {
+	/** The number of entities in the frame */
+	@Param({"60", "1000", "10000"})
+	private int entityCount;
+
+	/** The entities to resolve collisions between */
+	private List<Entity> entities;
+	/** The grid used to resolve collisions */
+	private CollisionGrid grid = new CollisionGrid();
+
+	/**
+	 * Create the entities of the frame
+	 */
+	@Setup
+	public void setup() {
+		entities = BenchmarkGames.busyFrame(BenchmarkGames.headlessGame(),entityCount);
+	}
+
+	/**
+	 * Resolve collisions using the grid
+	 *
+	 * @return The entities that were checked
+	 */
+	@Benchmark
+	public List<Entity> grid() {
+		grid.resolve(entities);
+		return entities;
+	}
+
+	/**
+	 * Resolve collisions comparing every entity against every other
+	 *
+	 * @return The entities that were checked
+	 */
+	@Benchmark
+	public List<Entity> bruteForce() {
+		for (int p=0;p<entities.size();p++) {
+			for (int s=p+1;s<entities.size();s++) {
+				Entity me = entities.get(p);
+				Entity him = entities.get(s);
+
+				if (me.collidesWith(him)) {
+					me.collidedWith(him);
+					him.collidedWith(me);
+				}
+			}
+		}
+		return entities;
+	}
+}
@@ -0,0 +1,75 @@
+package org.newdawn.spaceinvaders;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the work done by a single entity each loop
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class EntityBenchmark {
+	/** An alien to move and collide */
+	private Entity alien;
+	/** A shot lying over the alien */
+	private Entity hit;
+	/** A shot nowhere near the alien */
+	private Entity miss;
+
+	/**
+	 * Create the entities to benchmark
+	 */
+	@Setup
+	public void setup() {
+		Game game = BenchmarkGames.headlessGame();
+
+		alien = BenchmarkGames.alien(game,400,50);
+		hit = new ShotEntity(game,"sprites/shot.gif",410,55);
+		miss = new ShotEntity(game,"sprites/shot.gif",100,500);
+	}
+
+	/**
+	 * Check a pair of entities that collide
+	 *
+	 * @return The result of the check
+	 */
+	@Benchmark
+	public boolean collidesWithHit() {
+		return alien.collidesWith(hit);
+	}
+
+	/**
+	 * Check a pair of entities that don't collide
+	 *
+	 * @return The result of the check
+	 */
+	@Benchmark
+	public boolean collidesWithMiss() {
+		return alien.collidesWith(miss);
+	}
+
+	/**
+	 * Move an alien by a single logic step
+	 *
+	 * @return The alien that was moved
+	 */
+	@Benchmark
+	public Entity alienMove() {
+		alien.move(10);
+		return alien;
+	}
+}
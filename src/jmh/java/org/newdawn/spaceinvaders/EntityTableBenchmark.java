@@ -0,0 +1,93 @@
+package org.newdawn.spaceinvaders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for removing a handful of entities from a large world, with
+ * the entity table and with the list and removeAll() it replaced
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class EntityTableBenchmark {
+	/** The number of entities removed (and added back) each loop */
+	private static final int REMOVED = 10;
+
+	/** The number of entities in the world */
+	@Param({"1000", "10000", "100000"})
+	private int entityCount;
+
+	/** The table holding the entities */
+	private EntityTable table;
+	/** The list holding the same entities */
+	private ArrayList<Entity> list;
+	/** The entities to remove each loop */
+	private List<Entity> removed;
+
+	/**
+	 * Fill the table and list with a wave of aliens
+	 */
+	@Setup
+	public void setup() {
+		Game game = BenchmarkGames.headlessGame();
+		List<Entity> aliens = BenchmarkGames.alienWave(game,entityCount);
+
+		table = new EntityTable();
+		list = new ArrayList<>(aliens);
+		for (int i=0;i<aliens.size();i++) {
+			table.addEntity(aliens.get(i));
+		}
+
+		removed = new ArrayList<>();
+		for (int i=0;i<REMOVED;i++) {
+			removed.add(aliens.get((i * entityCount) / REMOVED));
+		}
+	}
+
+	/**
+	 * Mark the entities (each one twice), remove them and add them back
+	 *
+	 * @return The table the entities were removed from
+	 */
+	@Benchmark
+	public EntityTable table() {
+		for (int i=0;i<removed.size();i++) {
+			table.markForRemoval(removed.get(i));
+			table.markForRemoval(removed.get(i));
+		}
+		table.removeMarked();
+		for (int i=0;i<removed.size();i++) {
+			table.addEntity(removed.get(i));
+		}
+		return table;
+	}
+
+	/**
+	 * Remove the entities with removeAll() and add them back
+	 *
+	 * @return The list the entities were removed from
+	 */
+	@Benchmark
+	public List<Entity> listRemoveAll() {
+		list.removeAll(removed);
+		list.addAll(removed);
+		return list;
+	}
+}
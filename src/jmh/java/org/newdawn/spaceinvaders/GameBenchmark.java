@@ -0,0 +1,58 @@
+package org.newdawn.spaceinvaders;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the game events raised by entities
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class GameBenchmark {
+	/** The number of aliens in the game */
+	@Param({"60", "1000", "10000"})
+	private int alienCount;
+
+	/** The game raising the events */
+	private Game game;
+
+	/**
+	 * Create a game holding the requested number of aliens
+	 */
+	@Setup
+	public void setup() {
+		game = BenchmarkGames.headlessGame();
+
+		List<Entity> aliens = BenchmarkGames.alienWave(game,alienCount);
+		for (int i=0;i<aliens.size();i++) {
+			game.addEntity(aliens.get(i));
+		}
+	}
+
+	/**
+	 * Notify the game an alien has been killed
+	 *
+	 * @return The game that was notified
+	 */
+	@Benchmark
+	public Game notifyAlienKilled() {
+		game.notifyAlienKilled();
+		return game;
+	}
+}
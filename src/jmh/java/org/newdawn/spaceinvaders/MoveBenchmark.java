@@ -0,0 +1,111 @@
+package org.newdawn.spaceinvaders;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the move step, on the calling thread and split across
+ * a fork/join pool, with each entity holding its own state and with the
+ * state held in an entity store
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class MoveBenchmark {
+	/** The number of aliens to move */
+	@Param({"1000", "10000", "100000"})
+	private int entityCount;
+
+	/** The game the entities belong to */
+	private Game game;
+	/** The entities to move */
+	private List<Entity> entities;
+	/** The mover splitting the entities across threads */
+	private ParallelMover mover;
+	/** A second wave of aliens whose state is held in the store */
+	private List<Entity> storedEntities;
+	/** The store holding the state of the second wave */
+	private EntityStore store;
+
+	/**
+	 * Create a wave of aliens to move
+	 */
+	@Setup
+	public void setup() {
+		game = BenchmarkGames.headlessGame();
+		entities = BenchmarkGames.alienWave(game,entityCount);
+		mover = new ParallelMover(0);
+
+		storedEntities = BenchmarkGames.alienWave(game,entityCount);
+		store = new EntityStore(entityCount);
+		for (int i=0;i<storedEntities.size();i++) {
+			store.add(storedEntities.get(i));
+		}
+	}
+
+	/**
+	 * Move every entity on the calling thread
+	 *
+	 * @return The entities that were moved
+	 */
+	@Benchmark
+	public List<Entity> sequential() {
+		for (int i=0;i<entities.size();i++) {
+			Entity entity = entities.get(i);
+
+			entity.storePreviousLocation();
+			entity.move(10);
+		}
+		return entities;
+	}
+
+	/**
+	 * Move every entity in chunks on the fork/join pool
+	 *
+	 * @return The entities that were moved
+	 */
+	@Benchmark
+	public List<Entity> parallel() {
+		mover.move(game,entities,null,10,true);
+		return entities;
+	}
+
+	/**
+	 * Move every entity in the store with a single sweep of its arrays
+	 *
+	 * @return The store that was moved
+	 */
+	@Benchmark
+	public EntityStore storeSweep() {
+		store.storePreviousLocations();
+		store.move(0,store.size(),10);
+		return store;
+	}
+
+	/**
+	 * Move every entity in the store in chunks on the fork/join pool
+	 *
+	 * @return The store that was moved
+	 */
+	@Benchmark
+	public EntityStore storeParallel() {
+		store.storePreviousLocations();
+		mover.move(game,storedEntities,store,10,true);
+		return store;
+	}
+}
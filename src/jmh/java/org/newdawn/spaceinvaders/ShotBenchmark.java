@@ -0,0 +1,84 @@
+package org.newdawn.spaceinvaders;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the life of a shot, fired into the entity table and
+ * removed again, with and without pooling. Run with "-prof gc" to see
+ * the allocation rate of each.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ShotBenchmark {
+	/** The game the shots are fired in */
+	private Game game;
+	/** The ID of the shot sprite */
+	private int shotSprite;
+	/** The table the shots are added to */
+	private EntityTable table;
+	/** The pool of shots */
+	private EntityPool<ShotEntity> pool;
+
+	/**
+	 * Create the table and a pool holding a single shot
+	 */
+	@Setup
+	public void setup() {
+		game = BenchmarkGames.headlessGame();
+		shotSprite = ResourceFactory.get().getSpriteId("sprites/shot.gif");
+		table = new EntityTable();
+		pool = new EntityPool<>(() -> new ShotEntity(game,shotSprite,0,0),1);
+		pool.fill(1);
+	}
+
+	/**
+	 * Fire a shot taken from the pool and remove it again
+	 *
+	 * @return The shot that was fired
+	 */
+	@Benchmark
+	public Entity pooled() {
+		ShotEntity shot = pool.acquire();
+		shot.setLocation(380,520);
+		shot.storePreviousLocation();
+		return fire(shot);
+	}
+
+	/**
+	 * Fire a newly created shot and remove it again
+	 *
+	 * @return The shot that was fired
+	 */
+	@Benchmark
+	public Entity allocated() {
+		return fire(new ShotEntity(game,shotSprite,380,520));
+	}
+
+	/**
+	 * Add a shot to the table and remove it again
+	 *
+	 * @param shot The shot to fire
+	 * @return The shot that was fired
+	 */
+	private Entity fire(ShotEntity shot) {
+		table.addEntity(shot);
+		table.markForRemoval(shot);
+		table.removeMarked();
+		return shot;
+	}
+}
@@ -0,0 +1,72 @@
+package org.newdawn.spaceinvaders.jogl;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.newdawn.spaceinvaders.util.NativeBufferArena;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.jogamp.opengl.GL;
+
+/**
+ * Benchmarks for converting images into texture data. Only the conversion
+ * is measured, nothing is handed to OpenGL so no display is needed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class TextureLoaderBenchmark {
+	/** The image to convert */
+	@Param({"sprites/shot.gif", "sprites/alien.gif", "sprites/youwin.gif"})
+	private String ref;
+
+	/** The loader doing the conversion */
+	private TextureLoader loader;
+	/** The loaded image */
+	private BufferedImage image;
+	/** The texture the image is converted for */
+	private Texture texture;
+
+	/**
+	 * Load the image to convert
+	 *
+	 * @throws IOException Indicates a failure to load the image
+	 */
+	@Setup
+	public void setup() throws IOException {
+		loader = new TextureLoader(null);
+		image = loader.loadImage(ref);
+		texture = new Texture(GL.GL_TEXTURE_2D,0);
+		texture.setWidth(image.getWidth());
+		texture.setHeight(image.getHeight());
+	}
+
+	/**
+	 * Convert the image into texture data, giving the buffer back to the
+	 * arena as an upload would
+	 *
+	 * @param blackhole The sink for the texture data
+	 */
+	@Benchmark
+	public void convertImageData(Blackhole blackhole) {
+		ByteBuffer data = loader.convertImageData(image,texture);
+		blackhole.consume(data);
+		NativeBufferArena.get().release(data);
+	}
+}
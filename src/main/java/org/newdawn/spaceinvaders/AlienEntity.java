@@ -1,17 +1,21 @@
 package org.newdawn.spaceinvaders;
 
 /**
- * An entity which represents one of our space invader aliens.
+ * An entity which represents one of our space invader aliens. Aliens
+ * don't move by themselves, each one holds a place in a formation and
+ * simply follows the formation as it marches across the screen.
  * 
  * @author Kevin Glass
  */
 public class AlienEntity extends Entity {
-	/** The speed at which the alient moves horizontally */
-	private double moveSpeed = 75;
-	/** The game in which the entity exists */
-	private Game game;
-	/** The animation frames */
-	private Sprite[] frames = new Sprite[4];
+	/** The formation this alien belongs to */
+	private AlienFormation formation;
+	/** The column of this alien in the formation */
+	private int column;
+	/** The row of this alien in the formation */
+	private int row;
+	/** The IDs of the sprites of the animation frames, shared by all aliens */
+	private int[] frames;
 	/** The time since the last frame change took place */
 	private long lastFrameChange;
 	/** The frame duration in milliseconds, i.e. how long any given frame of animation lasts */
@@ -23,28 +27,33 @@ public class AlienEntity extends Entity {
 	 * Create a new alien entity
 	 * 
 	 * @param game The game in which this entity is being created
-	 * @param x The intial x location of this alien
-	 * @param y The intial y location of this alient
+	 * @param formation The formation this alien takes a place in
+	 * @param column The column of this alien in the formation
+	 * @param row The row of this alien in the formation
 	 */
-	public AlienEntity(Game game,int x,int y) {
-		super("sprites/alien.gif",x,y);
+	public AlienEntity(Game game,AlienFormation formation,int column,int row) {
+		super(game.getAlienFrames()[0],(int) formation.getColumnX(column),(int) formation.getRowY(row));
 		
-		// setup the animatin frames
-		frames[0] = sprite;
-		frames[1] = ResourceFactory.get().getSprite("sprites/alien2.gif");
-		frames[2] = sprite;
-		frames[3] = ResourceFactory.get().getSprite("sprites/alien3.gif");
+		// the animation frames are registered once by the game
+		frames = game.getAlienFrames();
 		
-		this.game = game;
-		dx = -moveSpeed;
+		this.formation = formation;
+		this.column = column;
+		this.row = row;
+		formation.join(column,row);
+		
+		setLocation(formation.getColumnX(column),formation.getRowY(row));
+		storePreviousLocation();
 	}
 
 	/**
-	 * Request that this alien moved based on time elapsed
+	 * Notification that this alien has moved based on time elapsed.
+	 * Aliens have no speed of their own, they take up their place in
+	 * the formation instead.
 	 * 
 	 * @param delta The time that has elapsed since last move
 	 */
-	public void move(long delta) {
+	protected void moved(long delta) {
 		// since the move tells us how much time has passed
 		// by we can use it to drive the animation, however
 		// its the not the prettiest solution
@@ -62,38 +71,20 @@ public class AlienEntity extends Entity {
 				frameNumber = 0;
 			}
 			
-			sprite = frames[frameNumber];
-		}
-		
-		// if we have reached the left hand side of the screen and
-		// are moving left then request a logic update 
-		if ((dx < 0) && (x < 10)) {
-			game.updateLogic();
-		}
-		// and vice vesa, if we have reached the right hand side of 
-		// the screen and are moving right, request a logic update
-		if ((dx > 0) && (x > 750)) {
-			game.updateLogic();
+			setSprite(frames[frameNumber]);
 		}
 		
-		// proceed with normal move
-		super.move(delta);
+		// the formation has already been moved, take up our
+		// place in it
+		setLocation(formation.getColumnX(column),formation.getRowY(row));
 	}
 	
 	/**
-	 * Update the game logic related to aliens
+	 * Notification that this alien has been removed from the game, it
+	 * gives up its place in the formation
 	 */
-	public void doLogic() {
-		// swap over horizontal movement and move down the
-		// screen a bit
-		dx = -dx;
-		y += 10;
-		
-		// if we've reached the bottom of the screen then the player
-		// dies
-		if (y > 570) {
-			game.notifyDeath();
-		}
+	protected void removed() {
+		formation.leave(column,row);
 	}
 	
 	/**
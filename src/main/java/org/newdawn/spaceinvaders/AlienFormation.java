@@ -0,0 +1,230 @@
+package org.newdawn.spaceinvaders;
+
+/**
+ * A block of aliens that march together. Rather than each alien keeping
+ * its own speed and checking the edges of the screen for itself, the
+ * formation keeps the shared speed and the location of the block as a
+ * whole. Each alien only knows its place (column and row) in the block.
+ *
+ * The formation also keeps count of the aliens left in each column and
+ * row, so the edges of the surviving aliens are always known. When the
+ * last alien of an outer column or the bottom row dies the edge moves in,
+ * each column or row is only ever stepped over once, so keeping the edges
+ * up to date costs nothing as the formation grows. Reaching the side of the
+ * screen, turning round and speeding up are all single updates no matter
+ * how many aliens there are.
+ */
+public class AlienFormation {
+	/** The location of the left hand edge of the screen that turns the formation round */
+	private static final int LEFT_LIMIT = 10;
+	/** The location of the right hand edge of the screen that turns the formation round */
+	private static final int RIGHT_LIMIT = 750;
+	/** The location aliens have to pass to reach the bottom of the screen */
+	private static final int BOTTOM_LIMIT = 570;
+	/** The distance the formation moves down each time it turns round */
+	private static final int DROP = 10;
+
+	/** The x location of the top left alien position */
+	private double x;
+	/** The y location of the top left alien position */
+	private double y;
+	/** The horizontal speed of the formation (pixels/sec) */
+	private double dx;
+	/** The number of columns in the formation */
+	private int columns;
+	/** The number of rows in the formation */
+	private int rows;
+	/** The horizontal distance between columns */
+	private int spacingX;
+	/** The vertical distance between rows */
+	private int spacingY;
+	/** The number of aliens left in each column */
+	private int[] columnCounts;
+	/** The number of aliens left in each row */
+	private int[] rowCounts;
+	/** The leftmost column with any aliens left */
+	private int firstColumn;
+	/** The rightmost column with any aliens left */
+	private int lastColumn = -1;
+	/** The bottom row with any aliens left */
+	private int lastRow = -1;
+	/** The number of aliens left in the formation */
+	private int alienCount;
+
+	/**
+	 * Create a new, empty formation
+	 *
+	 * @param x The x location of the top left alien position
+	 * @param y The y location of the top left alien position
+	 * @param columns The number of columns in the formation
+	 * @param rows The number of rows in the formation
+	 * @param spacingX The horizontal distance between columns
+	 * @param spacingY The vertical distance between rows
+	 * @param dx The initial horizontal speed of the formation (pixels/sec)
+	 */
+	public AlienFormation(double x,double y,int columns,int rows,int spacingX,int spacingY,double dx) {
+		this.x = x;
+		this.y = y;
+		this.columns = columns;
+		this.rows = rows;
+		this.spacingX = spacingX;
+		this.spacingY = spacingY;
+		this.dx = dx;
+
+		columnCounts = new int[columns];
+		rowCounts = new int[rows];
+		firstColumn = columns;
+	}
+
+	/**
+	 * Get the number of columns in the formation
+	 *
+	 * @return The number of columns
+	 */
+	public int getColumns() {
+		return columns;
+	}
+
+	/**
+	 * Get the number of rows in the formation
+	 *
+	 * @return The number of rows
+	 */
+	public int getRows() {
+		return rows;
+	}
+
+	/**
+	 * Get the current x location of a column
+	 *
+	 * @param column The column to locate
+	 * @return The x location of aliens in the column
+	 */
+	public double getColumnX(int column) {
+		return x + (column * spacingX);
+	}
+
+	/**
+	 * Get the current y location of a row
+	 *
+	 * @param row The row to locate
+	 * @return The y location of aliens in the row
+	 */
+	public double getRowY(int row) {
+		return y + (row * spacingY);
+	}
+
+	/**
+	 * Get the horizontal speed of the formation
+	 *
+	 * @return The horizontal speed of the formation (pixels/sec)
+	 */
+	public double getHorizontalMovement() {
+		return dx;
+	}
+
+	/**
+	 * Get the number of aliens left in the formation
+	 *
+	 * @return The number of aliens left
+	 */
+	public int getAlienCount() {
+		return alienCount;
+	}
+
+	/**
+	 * Notification that an alien has taken its place in the formation
+	 *
+	 * @param column The column of the alien
+	 * @param row The row of the alien
+	 */
+	void join(int column,int row) {
+		if ((column < 0) || (column >= columns) || (row < 0) || (row >= rows)) {
+			throw new IllegalArgumentException("No place in the formation at "+column+","+row);
+		}
+
+		columnCounts[column]++;
+		rowCounts[row]++;
+		alienCount++;
+
+		firstColumn = Math.min(firstColumn,column);
+		lastColumn = Math.max(lastColumn,column);
+		lastRow = Math.max(lastRow,row);
+	}
+
+	/**
+	 * Notification that an alien has left the formation, the edges of
+	 * the formation are pulled in past any columns and rows left empty.
+	 *
+	 * @param column The column of the alien
+	 * @param row The row of the alien
+	 */
+	void leave(int column,int row) {
+		columnCounts[column]--;
+		rowCounts[row]--;
+		alienCount--;
+
+		while ((firstColumn <= lastColumn) && (columnCounts[firstColumn] == 0)) {
+			firstColumn++;
+		}
+		while ((lastColumn >= firstColumn) && (columnCounts[lastColumn] == 0)) {
+			lastColumn--;
+		}
+		while ((lastRow >= 0) && (rowCounts[lastRow] == 0)) {
+			lastRow--;
+		}
+	}
+
+	/**
+	 * Check if the formation has reached the side of the screen it is
+	 * heading towards, and so needs to turn round.
+	 *
+	 * @return True if the formation has reached the side of the screen
+	 */
+	public boolean isAtEdge() {
+		if (alienCount == 0) {
+			return false;
+		}
+
+		if ((dx < 0) && (getColumnX(firstColumn) < LEFT_LIMIT)) {
+			return true;
+		}
+		return (dx > 0) && (getColumnX(lastColumn) > RIGHT_LIMIT);
+	}
+
+	/**
+	 * Check if the bottom row of aliens has reached the bottom of the screen
+	 *
+	 * @return True if the aliens have reached the bottom of the screen
+	 */
+	public boolean hasLanded() {
+		return (alienCount > 0) && (getRowY(lastRow) > BOTTOM_LIMIT);
+	}
+
+	/**
+	 * Move the formation based on a certain amount of time passing. The
+	 * aliens follow when they're next moved.
+	 *
+	 * @param delta The ammount of time that has passed in milliseconds
+	 */
+	public void move(long delta) {
+		x += (delta * dx) / 1000;
+	}
+
+	/**
+	 * Turn the formation round and move it down the screen a bit
+	 */
+	public void flip() {
+		dx = -dx;
+		y += DROP;
+	}
+
+	/**
+	 * Change the speed of the formation
+	 *
+	 * @param factor The amount to multiply the speed by
+	 */
+	public void speedUp(double factor) {
+		dx *= factor;
+	}
+}
@@ -0,0 +1,293 @@
+package org.newdawn.spaceinvaders;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A uniform grid broadphase for resolving collisions between entities. Rather
+ * than comparing every entity against every other entity the grid is rebuilt
+ * from the entity bounds on each sweep and only entities that share a cell are
+ * handed to the (comparatively expensive) collision check.
+ *
+ * The grid is unbounded, cells are hashed into a fixed table of buckets so that
+ * entities which wander off the screen (shots leaving the top for instance) are
+ * still handled. Candidate pairs are visited in exactly the same order as the
+ * old brute force loop, i.e. ordered by the index of the first entity and then
+ * by the index of the second, so the game behaves identically.
+ */
+public class CollisionGrid {
+	/** The default size of a grid cell in pixels */
+	public static final int DEFAULT_CELL_SIZE = 64;
+
+	/** The size of a cell in pixels */
+	private int cellSize;
+	/** The first entry in each hash bucket, -1 if the bucket is empty */
+	private int[] heads = new int[256];
+	/** The next entry in the same bucket for each entry */
+	private int[] next = new int[256];
+	/** The index of the entity that owns each entry */
+	private int[] owner = new int[256];
+	/** The cell column of each entry */
+	private int[] cellX = new int[256];
+	/** The cell row of each entry */
+	private int[] cellY = new int[256];
+	/** The number of entries in the grid */
+	private int entryCount;
+
+	/** The first cell column covered by each entity */
+	private int[] minCellX = new int[64];
+	/** The first cell row covered by each entity */
+	private int[] minCellY = new int[64];
+	/** The last cell column covered by each entity */
+	private int[] maxCellX = new int[64];
+	/** The last cell row covered by each entity */
+	private int[] maxCellY = new int[64];
+
+	/** The candidates found for the entity currently being resolved */
+	private int[] candidates = new int[64];
+	/** The last entity for which each entity was recorded as a candidate, used to avoid duplicates */
+	private int[] stamps = new int[64];
+
+	/**
+	 * Create a new grid using the default cell size
+	 */
+	public CollisionGrid() {
+		this(DEFAULT_CELL_SIZE);
+	}
+
+	/**
+	 * Create a new grid
+	 *
+	 * @param cellSize The size of each cell in pixels
+	 */
+	public CollisionGrid(int cellSize) {
+		if (cellSize <= 0) {
+			throw new IllegalArgumentException("Cell size must be positive: "+cellSize);
+		}
+
+		this.cellSize = cellSize;
+	}
+
+	/**
+	 * Check every pair of entities that share a cell and notify both
+	 * entities of any collision that has occured.
+	 *
+	 * @param entities The entities to resolve collisions between
+	 */
+	public void resolve(List<Entity> entities) {
+		int count = entities.size();
+
+		rebuild(entities);
+
+		for (int p=0;p<count;p++) {
+			int found = findCandidates(p);
+
+			// keep the same order that the brute force sweep would use
+			if (found > 1) {
+				Arrays.sort(candidates,0,found);
+			}
+
+			Entity me = entities.get(p);
+			for (int i=0;i<found;i++) {
+				Entity him = entities.get(candidates[i]);
+
+				if (me.collidesWith(him)) {
+					me.collidedWith(him);
+					him.collidedWith(me);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Check every pair of entities in a store that share a cell and notify
+	 * both entities of any collision that has occured. The bounds are read
+	 * straight from the store's arrays and pairs of entities that have no
+	 * interest in each other (according to their types) are skipped.
+	 *
+	 * @param store The store holding the entities to resolve collisions between
+	 */
+	public void resolve(EntityStore store) {
+		int count = store.size();
+
+		prepare(count);
+		for (int i=0;i<count;i++) {
+			insert(i,(int) store.x[i],(int) store.y[i],store.width[i],store.height[i]);
+		}
+
+		for (int p=0;p<count;p++) {
+			int found = findCandidates(p);
+
+			// keep the same order that the brute force sweep would use
+			if (found > 1) {
+				Arrays.sort(candidates,0,found);
+			}
+
+			Entity me = store.entities[p];
+			byte type = store.type[p];
+			for (int i=0;i<found;i++) {
+				int s = candidates[i];
+				if (!EntityStore.interacts(type,store.type[s])) {
+					continue;
+				}
+
+				Entity him = store.entities[s];
+				if (me.collidesWith(him)) {
+					me.collidedWith(him);
+					him.collidedWith(me);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Rebuild the grid from the current bounds of the entities
+	 *
+	 * @param entities The entities to place in the grid
+	 */
+	private void rebuild(List<Entity> entities) {
+		int count = entities.size();
+
+		prepare(count);
+		for (int i=0;i<count;i++) {
+			Entity entity = entities.get(i);
+
+			insert(i,entity.left,entity.top,entity.width,entity.height);
+		}
+	}
+
+	/**
+	 * Empty the grid ready for a given number of entities to be inserted
+	 *
+	 * @param count The number of entities that will be inserted
+	 */
+	private void prepare(int count) {
+		ensureEntityCapacity(count);
+
+		// size the hash table to roughly the number of entities,
+		// this keeps the buckets short without wasting memory
+		int buckets = heads.length;
+		while (buckets < count * 2) {
+			buckets *= 2;
+		}
+		if (buckets != heads.length) {
+			heads = new int[buckets];
+		}
+		Arrays.fill(heads,-1);
+		Arrays.fill(stamps,0,count,-1);
+		entryCount = 0;
+	}
+
+	/**
+	 * Insert an entity into every cell its bounds cover
+	 *
+	 * @param i The index of the entity
+	 * @param x The x location of the entity
+	 * @param y The y location of the entity
+	 * @param width The width of the entity
+	 * @param height The height of the entity
+	 */
+	private void insert(int i,int x,int y,int width,int height) {
+		// the cells covered by the entity, note that the right and bottom
+		// edges are exclusive in the same way as java.awt.Rectangle
+		minCellX[i] = Math.floorDiv(x,cellSize);
+		minCellY[i] = Math.floorDiv(y,cellSize);
+		maxCellX[i] = Math.floorDiv(x+Math.max(1,width)-1,cellSize);
+		maxCellY[i] = Math.floorDiv(y+Math.max(1,height)-1,cellSize);
+
+		for (int cy=minCellY[i];cy<=maxCellY[i];cy++) {
+			for (int cx=minCellX[i];cx<=maxCellX[i];cx++) {
+				addEntry(i,cx,cy);
+			}
+		}
+	}
+
+	/**
+	 * Find the entities that share a cell with a given entity and
+	 * come after it in the entity list.
+	 *
+	 * @param p The index of the entity whose candidates should be found
+	 * @return The number of candidates found
+	 */
+	private int findCandidates(int p) {
+		int found = 0;
+		int mask = heads.length - 1;
+
+		for (int cy=minCellY[p];cy<=maxCellY[p];cy++) {
+			for (int cx=minCellX[p];cx<=maxCellX[p];cx++) {
+				for (int e=heads[hash(cx,cy) & mask];e != -1;e=next[e]) {
+					int s = owner[e];
+
+					if ((s <= p) || (cellX[e] != cx) || (cellY[e] != cy) || (stamps[s] == p)) {
+						continue;
+					}
+
+					stamps[s] = p;
+					candidates[found++] = s;
+				}
+			}
+		}
+
+		return found;
+	}
+
+	/**
+	 * Add an entry for an entity to the given cell
+	 *
+	 * @param entity The index of the entity
+	 * @param cx The cell column
+	 * @param cy The cell row
+	 */
+	private void addEntry(int entity,int cx,int cy) {
+		if (entryCount == owner.length) {
+			int size = owner.length * 2;
+			next = Arrays.copyOf(next,size);
+			owner = Arrays.copyOf(owner,size);
+			cellX = Arrays.copyOf(cellX,size);
+			cellY = Arrays.copyOf(cellY,size);
+		}
+
+		int bucket = hash(cx,cy) & (heads.length - 1);
+		owner[entryCount] = entity;
+		cellX[entryCount] = cx;
+		cellY[entryCount] = cy;
+		next[entryCount] = heads[bucket];
+		heads[bucket] = entryCount;
+		entryCount++;
+	}
+
+	/**
+	 * Make sure the per entity arrays can hold the given number of entities
+	 *
+	 * @param count The number of entities that need to be stored
+	 */
+	private void ensureEntityCapacity(int count) {
+		if (count <= minCellX.length) {
+			return;
+		}
+
+		int size = minCellX.length;
+		while (size < count) {
+			size *= 2;
+		}
+
+		minCellX = new int[size];
+		minCellY = new int[size];
+		maxCellX = new int[size];
+		maxCellY = new int[size];
+		candidates = new int[size];
+		stamps = new int[size];
+	}
+
+	/**
+	 * Hash a cell location into a bucket index
+	 *
+	 * @param cx The cell column
+	 * @param cy The cell row
+	 * @return The (unmasked) hash of the cell
+	 */
+	private static int hash(int cx,int cy) {
+		int h = (cx * 73856093) ^ (cy * 19349663);
+		return h ^ (h >>> 16);
+	}
+}
@@ -1,6 +1,6 @@
 package org.newdawn.spaceinvaders;
 
-import java.awt.Rectangle;
+import org.newdawn.spaceinvaders.util.CollisionMask;
 
 /**
  * An entity represents any element that appears in the game. The
@@ -13,23 +13,58 @@ import java.awt.Rectangle;
  * they will be display half way through a pixel but allows us not lose
  * accuracy as we move.
  * 
+ * The location and speed of an entity are normally held by the entity
+ * itself. When the entity has been added to an EntityStore they are held
+ * in the store's arrays instead, which is why subclasses should always go
+ * through the accessors rather than keeping copies of their own. The
+ * store moves all of its entities in one sweep over its arrays without
+ * calling move(), so the movement rules of each kind of entity belong in
+ * moved(), which is called either way.
+ *
  * @author Kevin Glass
  */
 public abstract class Entity {
+	/** True if collisions should be checked against the opaque pixels of sprites rather than just their bounds */
+	private static final boolean PIXEL_PERFECT = Boolean.getBoolean("spaceinvaders.pixelperfect");
+
 	/** The current x location of this entity */ 
-	protected double x;
+	private double x;
 	/** The current y location of this entity */
-	protected double y;
+	private double y;
+	/** The x location of this entity before the last logic step */
+	private double previousX;
+	/** The y location of this entity before the last logic step */
+	private double previousY;
+	/** The ID of the sprite that represents this entity */
+	protected int spriteId;
 	/** The sprite that represents this entity */
 	protected Sprite sprite;
+	/** The factory of the game this entity belongs to, used to look up sprites */
+	private ResourceFactory factory = ResourceFactory.get();
 	/** The current speed of this entity horizontally (pixels/sec) */
-	protected double dx;
+	private double dx;
 	/** The current speed of this entity vertically (pixels/sec) */
-	protected double dy;
-	/** The rectangle used for this entity during collisions  resolution */
-	private Rectangle me = new Rectangle();
-	/** The rectangle used for other entities during collision resolution */
-	private Rectangle him = new Rectangle();
+	private double dy;
+	/** The store holding the state of this entity, null if the entity holds its own state */
+	EntityStore store;
+	/** The slot of this entity in the store */
+	int slot;
+	/** The handle of this entity in the entity table */
+	long handle = EntityTable.NO_HANDLE;
+	/** The pool this entity is returned to when removed, null if it isn't pooled */
+	EntityPool<?> pool;
+	/** True if this entity is currently waiting in its pool */
+	boolean pooled;
+	/** The left edge of the bounds used for collisions, kept up to date as this entity moves */
+	int left;
+	/** The top edge of the bounds used for collisions, kept up to date as this entity moves */
+	int top;
+	/** The width of the bounds used for collisions, taken from the sprite when it changes */
+	int width;
+	/** The height of the bounds used for collisions, taken from the sprite when it changes */
+	int height;
+	/** The mask of the opaque pixels of the sprite, null if collisions only use the bounds */
+	private CollisionMask mask;
 	
 	/**
 	 * Construct a entity based on a sprite image and a location.
@@ -39,9 +74,22 @@ public abstract class Entity {
 	 * @param y The initial y location of this entity
 	 */
 	public Entity(String ref,int x,int y) {
-		this.sprite = ResourceFactory.get().getSprite(ref);
+		this(ResourceFactory.get().getSpriteId(ref),x,y);
+	}
+	
+	/**
+	 * Construct a entity based on a registered sprite and a location.
+	 * 
+	 * @param spriteId The ID of the sprite to be displayed for this entity
+ 	 * @param x The initial x location of this entity
+	 * @param y The initial y location of this entity
+	 */
+	public Entity(int spriteId,int x,int y) {
+		setSprite(spriteId);
 		this.x = x;
 		this.y = y;
+		storePreviousLocation();
+		updateBounds();
 	}
 	
 	/**
@@ -51,9 +99,53 @@ public abstract class Entity {
 	 * @param delta The ammount of time that has passed in milliseconds
 	 */
 	public void move(long delta) {
-		// update the location of the entity based on move speeds
-		x += (delta * dx) / 1000;
-		y += (delta * dy) / 1000;
+		if (store != null) {
+			store.move(slot,delta);
+		} else {
+			// update the location of the entity based on move speeds
+			x += (delta * dx) / 1000;
+			y += (delta * dy) / 1000;
+		}
+
+		moved(delta);
+	}
+	
+	/**
+	 * Notification that this entity has just been moved based on its
+	 * speed, either by move() or by a sweep of the store holding it.
+	 * Subclasses apply their own rules here, e.g. stopping at the edge of
+	 * the screen, and must bring the bounds up to date.
+	 * 
+	 * @param delta The ammount of time that has passed in milliseconds
+	 */
+	protected void moved(long delta) {
+		updateBounds();
+	}
+	
+	/**
+	 * Change the sprite that represents this entity
+	 * 
+	 * @param spriteId The ID of the sprite to display
+	 */
+	protected void setSprite(int spriteId) {
+		this.spriteId = spriteId;
+		this.sprite = factory.getSprite(spriteId);
+		this.width = sprite.getWidth();
+		this.height = sprite.getHeight();
+		this.mask = PIXEL_PERFECT ? sprite.getCollisionMask() : null;
+
+		if (store != null) {
+			store.setSize(slot,width,height);
+		}
+	}
+	
+	/**
+	 * Get the ID of the sprite that represents this entity
+	 * 
+	 * @return The ID of the sprite
+	 */
+	public int getSpriteId() {
+		return spriteId;
 	}
 	
 	/**
@@ -62,7 +154,11 @@ public abstract class Entity {
 	 * @param dx The horizontal speed of this entity (pixels/sec)
 	 */
 	public void setHorizontalMovement(double dx) {
-		this.dx = dx;
+		if (store != null) {
+			store.dx[slot] = dx;
+		} else {
+			this.dx = dx;
+		}
 	}
 
 	/**
@@ -71,7 +167,11 @@ public abstract class Entity {
 	 * @param dy The vertical speed of this entity (pixels/sec)
 	 */
 	public void setVerticalMovement(double dy) {
-		this.dy = dy;
+		if (store != null) {
+			store.dy[slot] = dy;
+		} else {
+			this.dy = dy;
+		}
 	}
 	
 	/**
@@ -80,7 +180,7 @@ public abstract class Entity {
 	 * @return The horizontal speed of this entity (pixels/sec)
 	 */
 	public double getHorizontalMovement() {
-		return dx;
+		return (store != null) ? store.dx[slot] : dx;
 	}
 
 	/**
@@ -89,14 +189,42 @@ public abstract class Entity {
 	 * @return The vertical speed of this entity (pixels/sec)
 	 */
 	public double getVerticalMovement() {
-		return dy;
+		return (store != null) ? store.dy[slot] : dy;
+	}
+	
+	/**
+	 * Remember the current location of this entity so that it can be
+	 * drawn part way between this and the next logic step
+	 */
+	public void storePreviousLocation() {
+		if (store != null) {
+			store.previousX[slot] = store.x[slot];
+			store.previousY[slot] = store.y[slot];
+		} else {
+			previousX = x;
+			previousY = y;
+		}
 	}
 	
 	/**
 	 * Draw this entity to the graphics context provided
 	 */
 	public void draw() {
-		sprite.draw((int) x,(int) y);
+		sprite.draw(getX(),getY());
+	}
+	
+	/**
+	 * Draw this entity part way between its previous and current location
+	 * 
+	 * @param alpha How far between the previous and current location to draw, from 0 to 1
+	 */
+	public void draw(double alpha) {
+		if (store != null) {
+			store.draw(slot,alpha);
+			return;
+		}
+
+		sprite.draw((int) (previousX + (x - previousX) * alpha),(int) (previousY + (y - previousY) * alpha));
 	}
 	
 	/**
@@ -112,7 +240,7 @@ public abstract class Entity {
 	 * @return The x location of this entity
 	 */
 	public int getX() {
-		return (int) x;
+		return (int) getLocationX();
 	}
 
 	/**
@@ -121,7 +249,60 @@ public abstract class Entity {
 	 * @return The y location of this entity
 	 */
 	public int getY() {
-		return (int) y;
+		return (int) getLocationY();
+	}
+
+	/**
+	 * Get the exact x location of this entity
+	 *
+	 * @return The x location of this entity, including any partial pixel
+	 */
+	protected double getLocationX() {
+		return (store != null) ? store.x[slot] : x;
+	}
+
+	/**
+	 * Get the exact y location of this entity
+	 *
+	 * @return The y location of this entity, including any partial pixel
+	 */
+	protected double getLocationY() {
+		return (store != null) ? store.y[slot] : y;
+	}
+
+	/**
+	 * Get the x location of this entity before the last logic step
+	 *
+	 * @return The previous x location of this entity
+	 */
+	double getPreviousX() {
+		return (store != null) ? store.previousX[slot] : previousX;
+	}
+
+	/**
+	 * Get the y location of this entity before the last logic step
+	 *
+	 * @return The previous y location of this entity
+	 */
+	double getPreviousY() {
+		return (store != null) ? store.previousY[slot] : previousY;
+	}
+
+	/**
+	 * Move this entity straight to a new location
+	 *
+	 * @param x The new x location of this entity
+	 * @param y The new y location of this entity
+	 */
+	protected void setLocation(double x,double y) {
+		if (store != null) {
+			store.x[slot] = x;
+			store.y[slot] = y;
+		} else {
+			this.x = x;
+			this.y = y;
+		}
+		updateBounds();
 	}
 	
 	/**
@@ -131,10 +312,20 @@ public abstract class Entity {
 	 * @return True if the entities collide with each other
 	 */
 	public boolean collidesWith(Entity other) {
-		me.setBounds((int) x,(int) y,sprite.getWidth(),sprite.getHeight());
-		him.setBounds((int) other.x,(int) other.y,other.sprite.getWidth(),other.sprite.getHeight());
+		// the bounds are exclusive of the right and bottom edges,
+		// in the same way as java.awt.Rectangle
+		if ((left >= other.left + other.width) || (other.left >= left + width) ||
+			(top >= other.top + other.height) || (other.top >= top + height)) {
+			return false;
+		}
 
-		return me.intersects(him);
+		// the bounds overlap, if we're being exact check that
+		// some opaque pixels of the two sprites do too
+		if ((mask != null) && (other.mask != null)) {
+			return mask.overlaps(other.mask,other.left - left,other.top - top);
+		}
+
+		return true;
 	}
 	
 	/**
@@ -143,4 +334,68 @@ public abstract class Entity {
 	 * @param other The entity with which this entity collided.
 	 */
 	public abstract void collidedWith(Entity other);
-}
\ No newline at end of file
+
+	/**
+	 * Notification that this entity has been taken from its pool to be
+	 * used again. Any state left over from its last use should be reset.
+	 */
+	protected void acquired() {
+	}
+
+	/**
+	 * Notification that this entity has been removed from the game. This
+	 * happens before a pooled entity is given back to its pool.
+	 */
+	protected void removed() {
+	}
+
+	/**
+	 * Notification that this entity has been removed from the game and
+	 * is being given back to its pool.
+	 */
+	protected void released() {
+	}
+
+	/**
+	 * Bring the bounds used for collisions in line with the
+	 * current location of this entity
+	 */
+	private void updateBounds() {
+		left = (int) getLocationX();
+		top = (int) getLocationY();
+	}
+
+	/**
+	 * Hand the state of this entity over to a store. From now on the
+	 * store's arrays hold the location and speed of this entity.
+	 *
+	 * @param store The store taking over the state
+	 * @param slot The slot the entity has been given in the store
+	 */
+	void attach(EntityStore store,int slot) {
+		store.x[slot] = x;
+		store.y[slot] = y;
+		store.previousX[slot] = previousX;
+		store.previousY[slot] = previousY;
+		store.dx[slot] = dx;
+		store.dy[slot] = dy;
+		store.setSize(slot,width,height);
+
+		this.store = store;
+		this.slot = slot;
+	}
+
+	/**
+	 * Take the state of this entity back from the store it was held in
+	 */
+	void detach() {
+		x = store.x[slot];
+		y = store.y[slot];
+		previousX = store.previousX[slot];
+		previousY = store.previousY[slot];
+		dx = store.dx[slot];
+		dy = store.dy[slot];
+
+		store = null;
+	}
+}
@@ -0,0 +1,122 @@
+package org.newdawn.spaceinvaders;
+
+import java.util.function.Supplier;
+
+/**
+ * A pool of short lived entities (shots for instance) that are handed
+ * out again once they've been removed from the game, rather than being
+ * left for the garbage collector and created from scratch each time.
+ *
+ * Entities leave the pool through acquire(), at which point their
+ * acquired() hook is called so they can reset any state left over from
+ * their last outing. When the entity table removes a pooled entity it is
+ * given back automatically, calling its released() hook on the way in.
+ *
+ * @param <T> The type of entity held in the pool
+ */
+public class EntityPool<T extends Entity> {
+	/** The factory used to create entities when the pool is empty */
+	private Supplier<T> factory;
+	/** The entities waiting to be used again */
+	private Entity[] free;
+	/** The number of entities waiting to be used again */
+	private int freeCount;
+	/** The number of entities the pool has created */
+	private int created;
+
+	/**
+	 * Create a new, empty pool
+	 *
+	 * @param factory The factory used to create entities when the pool is empty
+	 * @param capacity The most entities to hold on to, any more given back are dropped
+	 */
+	public EntityPool(Supplier<T> factory,int capacity) {
+		this.factory = factory;
+		this.free = new Entity[capacity];
+	}
+
+	/**
+	 * Create entities up front so that none need to be created in game
+	 *
+	 * @param count The number of entities the pool should hold
+	 */
+	public void fill(int count) {
+		count = Math.min(count,free.length);
+
+		while (freeCount < count) {
+			Entity entity = create();
+			entity.pooled = true;
+			free[freeCount++] = entity;
+		}
+	}
+
+	/**
+	 * Take an entity from the pool, creating one if the pool is empty
+	 *
+	 * @return An entity ready to be placed and added to the game
+	 */
+	@SuppressWarnings("unchecked")
+	public T acquire() {
+		T entity;
+		if (freeCount > 0) {
+			entity = (T) free[--freeCount];
+			free[freeCount] = null;
+		} else {
+			entity = create();
+		}
+
+		entity.pooled = false;
+		entity.acquired();
+
+		return entity;
+	}
+
+	/**
+	 * Give an entity back to the pool. Entities that didn't come from this
+	 * pool, or that are already in it, are ignored.
+	 *
+	 * @param entity The entity to give back
+	 */
+	public void release(Entity entity) {
+		if ((entity.pool != this) || (entity.pooled)) {
+			return;
+		}
+
+		entity.released();
+		entity.pooled = true;
+		if (freeCount < free.length) {
+			free[freeCount++] = entity;
+		}
+	}
+
+	/**
+	 * Get the number of entities waiting to be used again
+	 *
+	 * @return The number of entities in the pool
+	 */
+	public int getFreeCount() {
+		return freeCount;
+	}
+
+	/**
+	 * Get the number of entities the pool has had to create
+	 *
+	 * @return The number of entities created
+	 */
+	public int getCreatedCount() {
+		return created;
+	}
+
+	/**
+	 * Create a new entity belonging to this pool
+	 *
+	 * @return The new entity
+	 */
+	private T create() {
+		T entity = factory.get();
+		entity.pool = this;
+		created++;
+
+		return entity;
+	}
+}
@@ -0,0 +1,280 @@
+package org.newdawn.spaceinvaders;
+
+import java.util.Arrays;
+
+/**
+ * A world store that keeps the state of entities in parallel arrays of
+ * primitives rather than spread over the entity objects. Each entity added
+ * to the store is given a slot, the entity's accessors read and write the
+ * arrays at that slot so the behaviour of ships, shots and aliens stays
+ * exactly the same. Sweeps over all entities (storing previous locations,
+ * moving them, building the collision grid) can then walk the arrays
+ * linearly.
+ *
+ * The store is driven by the EntityTable, removing an entity moves the
+ * last entity into its slot in both, so an entity's slot in the store is
+ * always the same as its index in the table.
+ */
+public class EntityStore {
+	/** The type of entities that aren't known to the store */
+	public static final byte OTHER = 0;
+	/** The type of the player's ship */
+	public static final byte SHIP = 1;
+	/** The type of the player's shots */
+	public static final byte SHOT = 2;
+	/** The type of aliens */
+	public static final byte ALIEN = 3;
+
+	/** The current x location of each entity */
+	double[] x;
+	/** The current y location of each entity */
+	double[] y;
+	/** The x location of each entity before the last logic step */
+	double[] previousX;
+	/** The y location of each entity before the last logic step */
+	double[] previousY;
+	/** The horizontal speed of each entity (pixels/sec) */
+	double[] dx;
+	/** The vertical speed of each entity (pixels/sec) */
+	double[] dy;
+	/** The width of the bounds of each entity */
+	int[] width;
+	/** The height of the bounds of each entity */
+	int[] height;
+	/** The type of each entity */
+	byte[] type;
+	/** The entity in each slot */
+	Entity[] entities;
+	/** The number of slots in use */
+	private int size;
+
+	/**
+	 * Create a new, empty store
+	 */
+	public EntityStore() {
+		this(64);
+	}
+
+	/**
+	 * Create a new, empty store
+	 *
+	 * @param capacity The number of entities to make room for up front
+	 */
+	public EntityStore(int capacity) {
+		x = new double[capacity];
+		y = new double[capacity];
+		previousX = new double[capacity];
+		previousY = new double[capacity];
+		dx = new double[capacity];
+		dy = new double[capacity];
+		width = new int[capacity];
+		height = new int[capacity];
+		type = new byte[capacity];
+		entities = new Entity[capacity];
+	}
+
+	/**
+	 * Add an entity to the store, the store takes over its state
+	 *
+	 * @param entity The entity to add
+	 */
+	public void add(Entity entity) {
+		if (size == entities.length) {
+			grow(Math.max(16,size * 2));
+		}
+
+		entities[size] = entity;
+		type[size] = typeOf(entity);
+		entity.attach(this,size);
+		size++;
+	}
+
+	/**
+	 * Remove the entity in a slot from the store, handing its state back
+	 * to it. The entity in the last slot is moved into the gap.
+	 *
+	 * @param slot The slot of the entity to remove
+	 */
+	public void swapRemove(int slot) {
+		int last = size - 1;
+
+		entities[slot].detach();
+		if (slot != last) {
+			copySlot(last,slot);
+			entities[slot].slot = slot;
+		}
+		entities[last] = null;
+		size = last;
+	}
+
+	/**
+	 * Remove every entity from the store
+	 */
+	public void clear() {
+		for (int i=0;i<size;i++) {
+			entities[i].detach();
+		}
+		Arrays.fill(entities,0,size,null);
+		size = 0;
+	}
+
+	/**
+	 * Get the number of entities in the store
+	 *
+	 * @return The number of entities in the store
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Get the entity in a given slot
+	 *
+	 * @param slot The slot of the entity
+	 * @return The entity in the slot
+	 */
+	public Entity getEntity(int slot) {
+		return entities[slot];
+	}
+
+	/**
+	 * Remember the current location of every entity so that they can
+	 * be drawn part way between this and the next logic step
+	 */
+	public void storePreviousLocations() {
+		System.arraycopy(x,0,previousX,0,size);
+		System.arraycopy(y,0,previousY,0,size);
+	}
+
+	/**
+	 * Check if two types of entity have any interest in colliding with
+	 * each other. Aliens don't care about other aliens for instance, so
+	 * there is no point checking them against each other.
+	 *
+	 * @param a The type of the first entity
+	 * @param b The type of the second entity
+	 * @return True if the entities should be checked for collision
+	 */
+	public static boolean interacts(byte a,byte b) {
+		if ((a == OTHER) || (b == OTHER)) {
+			return true;
+		}
+
+		return ((a == ALIEN) && (b != ALIEN)) || ((b == ALIEN) && (a != ALIEN));
+	}
+
+	/**
+	 * Move the entities in a range of slots based on their speeds. The
+	 * locations are swept straight through the arrays first, then each
+	 * entity is told it has moved so that it can apply its own rules.
+	 * Entities only change their own slot as they are told, so the result
+	 * is the same as moving them one at a time.
+	 *
+	 * @param from The first slot to move
+	 * @param to The slot after the last one to move
+	 * @param delta The ammount of time that has passed in milliseconds
+	 */
+	void move(int from,int to,long delta) {
+		for (int i=from;i<to;i++) {
+			x[i] += (delta * dx[i]) / 1000;
+			y[i] += (delta * dy[i]) / 1000;
+		}
+
+		for (int i=from;i<to;i++) {
+			entities[i].moved(delta);
+		}
+	}
+
+	/**
+	 * Move the entity in a slot based on its speed
+	 *
+	 * @param slot The slot of the entity to move
+	 * @param delta The ammount of time that has passed in milliseconds
+	 */
+	void move(int slot,long delta) {
+		x[slot] += (delta * dx[slot]) / 1000;
+		y[slot] += (delta * dy[slot]) / 1000;
+	}
+
+	/**
+	 * Draw the entity in a slot part way between its previous and
+	 * current location
+	 *
+	 * @param slot The slot of the entity to draw
+	 * @param alpha How far between the previous and current location to draw, from 0 to 1
+	 */
+	void draw(int slot,double alpha) {
+		double px = previousX[slot];
+		double py = previousY[slot];
+
+		entities[slot].sprite.draw((int) (px + (x[slot] - px) * alpha),(int) (py + (y[slot] - py) * alpha));
+	}
+
+	/**
+	 * Set the size of the bounds of the entity in a slot
+	 *
+	 * @param slot The slot of the entity
+	 * @param w The width of the entity
+	 * @param h The height of the entity
+	 */
+	void setSize(int slot,int w,int h) {
+		width[slot] = w;
+		height[slot] = h;
+	}
+
+	/**
+	 * Work out the type tag of an entity
+	 *
+	 * @param entity The entity to classify
+	 * @return The type of the entity
+	 */
+	private static byte typeOf(Entity entity) {
+		if (entity instanceof AlienEntity) {
+			return ALIEN;
+		}
+		if (entity instanceof ShotEntity) {
+			return SHOT;
+		}
+		if (entity instanceof ShipEntity) {
+			return SHIP;
+		}
+		return OTHER;
+	}
+
+	/**
+	 * Copy the state in one slot to another
+	 *
+	 * @param from The slot to copy from
+	 * @param to The slot to copy to
+	 */
+	private void copySlot(int from,int to) {
+		x[to] = x[from];
+		y[to] = y[from];
+		previousX[to] = previousX[from];
+		previousY[to] = previousY[from];
+		dx[to] = dx[from];
+		dy[to] = dy[from];
+		width[to] = width[from];
+		height[to] = height[from];
+		type[to] = type[from];
+		entities[to] = entities[from];
+	}
+
+	/**
+	 * Make room for more entities
+	 *
+	 * @param capacity The new number of slots
+	 */
+	private void grow(int capacity) {
+		x = Arrays.copyOf(x,capacity);
+		y = Arrays.copyOf(y,capacity);
+		previousX = Arrays.copyOf(previousX,capacity);
+		previousY = Arrays.copyOf(previousY,capacity);
+		dx = Arrays.copyOf(dx,capacity);
+		dy = Arrays.copyOf(dy,capacity);
+		width = Arrays.copyOf(width,capacity);
+		height = Arrays.copyOf(height,capacity);
+		type = Arrays.copyOf(type,capacity);
+		entities = Arrays.copyOf(entities,capacity);
+	}
+}
@@ -0,0 +1,333 @@
+package org.newdawn.spaceinvaders;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * The table of all entities that exist in the game. Entities are kept
+ * packed at the front of an array so they can be swept by index, removing
+ * an entity moves the last entity into the gap it leaves rather than
+ * shuffling everything after it along. This means removal costs the same
+ * no matter how many entities there are, at the price of entities not
+ * staying in the order they were added.
+ *
+ * Every entity in the table is given a handle. A handle is made up of the
+ * slot the entity was given and the generation of that slot, the generation
+ * goes up each time an entity leaves the slot. A handle kept hold of after
+ * its entity has left the table no longer matches and is detected as stale,
+ * even when the slot has since been handed to a new entity.
+ *
+ * Removal is done in two steps. During a logic step entities are marked for
+ * removal, marking the same entity more than once has no further effect.
+ * At the end of the step all marked entities are removed in one go.
+ *
+ * Entities are told as they leave the table through their removed() hook,
+ * pooled entities are then given back to their pool.
+ *
+ * The table is a read only view as far as the List interface goes, entities
+ * can only be added and removed through the methods of the table itself.
+ */
+public class EntityTable extends AbstractList<Entity> implements RandomAccess {
+	/** The handle held by entities that aren't in a table */
+	public static final long NO_HANDLE = -1;
+
+	/** The store kept in step with the table, null if entities hold their own state */
+	private EntityStore store;
+	/** The entities in the table, packed at the front */
+	private Entity[] entities;
+	/** The number of entities in the table */
+	private int size;
+	/** The slot owned by the entity at each index */
+	private int[] slotOf;
+	/** The index of the entity owning each slot */
+	private int[] indexOf;
+	/** The generation of each slot, bumped each time an entity leaves it */
+	private int[] generations;
+	/** True for each slot whose entity has been marked for removal */
+	private boolean[] marked;
+	/** The slots free for reuse */
+	private int[] freeSlots;
+	/** The number of free slots */
+	private int freeCount;
+	/** The number of slots that have ever been handed out */
+	private int slotCount;
+	/** The handles of the entities marked for removal, in the order they were marked */
+	private long[] pending = new long[16];
+	/** The number of entities marked for removal */
+	private int pendingCount;
+
+	/**
+	 * Create a new, empty table
+	 */
+	public EntityTable() {
+		this(null);
+	}
+
+	/**
+	 * Create a new, empty table
+	 *
+	 * @param store The store to keep in step with the table, so that each
+	 * entity's slot in the store matches its index in the table. May be null.
+	 */
+	public EntityTable(EntityStore store) {
+		this.store = store;
+
+		int capacity = 64;
+		entities = new Entity[capacity];
+		slotOf = new int[capacity];
+		indexOf = new int[capacity];
+		generations = new int[capacity];
+		marked = new boolean[capacity];
+		freeSlots = new int[capacity];
+	}
+
+	/**
+	 * Get the entity at a given index
+	 *
+	 * @param index The index of the entity
+	 * @return The entity at the index
+	 */
+	public Entity get(int index) {
+		if (index >= size) {
+			throw new IndexOutOfBoundsException("Index: "+index+", Size: "+size);
+		}
+
+		return entities[index];
+	}
+
+	/**
+	 * Get the number of entities in the table
+	 *
+	 * @return The number of entities in the table
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Add an entity to the end of the table
+	 *
+	 * @param entity The entity to add, which must not be in a table already
+	 * @return The handle given to the entity
+	 */
+	public long addEntity(Entity entity) {
+		if (entity.handle != NO_HANDLE) {
+			throw new IllegalStateException("Entity is already in a table: "+entity);
+		}
+
+		if (size == entities.length) {
+			int capacity = entities.length * 2;
+			entities = Arrays.copyOf(entities,capacity);
+			slotOf = Arrays.copyOf(slotOf,capacity);
+		}
+
+		int slot;
+		if (freeCount > 0) {
+			slot = freeSlots[--freeCount];
+		} else {
+			if (slotCount == generations.length) {
+				int capacity = generations.length * 2;
+				indexOf = Arrays.copyOf(indexOf,capacity);
+				generations = Arrays.copyOf(generations,capacity);
+				marked = Arrays.copyOf(marked,capacity);
+				freeSlots = Arrays.copyOf(freeSlots,capacity);
+			}
+			slot = slotCount++;
+		}
+
+		entities[size] = entity;
+		slotOf[size] = slot;
+		indexOf[slot] = size;
+		size++;
+
+		entity.handle = handle(slot,generations[slot]);
+		if (store != null) {
+			store.add(entity);
+		}
+
+		return entity.handle;
+	}
+
+	/**
+	 * Get the entity a handle refers to
+	 *
+	 * @param handle The handle of the entity
+	 * @return The entity, or null if the handle is stale
+	 */
+	public Entity resolve(long handle) {
+		if (!isValid(handle)) {
+			return null;
+		}
+
+		return entities[indexOf[slotOf(handle)]];
+	}
+
+	/**
+	 * Check if a handle still refers to an entity in the table
+	 *
+	 * @param handle The handle to check
+	 * @return True if the entity the handle was given to is still in the table
+	 */
+	public boolean isValid(long handle) {
+		if (handle < 0) {
+			return false;
+		}
+
+		int slot = slotOf(handle);
+		return (slot >= 0) && (slot < slotCount) && ((generations[slot] & 0x7fffffff) == generationOf(handle));
+	}
+
+	/**
+	 * Mark an entity to be removed by the next call to removeMarked().
+	 * Entities that have already been marked or that aren't in this
+	 * table are ignored.
+	 *
+	 * @param entity The entity to remove
+	 * @return True if the entity was marked, false if it was already marked or isn't in the table
+	 */
+	public boolean markForRemoval(Entity entity) {
+		long handle = entity.handle;
+		if ((!isValid(handle)) || (entities[indexOf[slotOf(handle)]] != entity)) {
+			return false;
+		}
+
+		int slot = slotOf(handle);
+		if (marked[slot]) {
+			return false;
+		}
+
+		marked[slot] = true;
+		if (pendingCount == pending.length) {
+			pending = Arrays.copyOf(pending,pendingCount * 2);
+		}
+		pending[pendingCount++] = handle;
+
+		return true;
+	}
+
+	/**
+	 * Check if an entity has been marked for removal
+	 *
+	 * @param entity The entity to check
+	 * @return True if the entity is in the table and has been marked for removal
+	 */
+	public boolean isMarkedForRemoval(Entity entity) {
+		return isValid(entity.handle) && marked[slotOf(entity.handle)];
+	}
+
+	/**
+	 * Remove every entity marked for removal. The cost depends only on
+	 * the number of entities removed.
+	 *
+	 * @return The number of entities removed
+	 */
+	public int removeMarked() {
+		int removed = 0;
+
+		for (int i=0;i<pendingCount;i++) {
+			long handle = pending[i];
+
+			// the entity may have gone already, e.g. the table was cleared
+			if (isValid(handle)) {
+				removeSlot(slotOf(handle));
+				removed++;
+			}
+		}
+		pendingCount = 0;
+
+		return removed;
+	}
+
+	/**
+	 * Remove every entity from the table, any handles given out become stale
+	 * and pooled entities are given back to their pools
+	 */
+	public void clear() {
+		if (store != null) {
+			store.clear();
+		}
+
+		for (int i=0;i<size;i++) {
+			int slot = slotOf[i];
+			Entity entity = entities[i];
+
+			entities[i] = null;
+			generations[slot]++;
+			marked[slot] = false;
+			freeSlots[freeCount++] = slot;
+
+			entity.handle = NO_HANDLE;
+			entity.removed();
+			if (entity.pool != null) {
+				entity.pool.release(entity);
+			}
+		}
+		size = 0;
+		pendingCount = 0;
+	}
+
+	/**
+	 * Remove the entity owning a slot by moving the last entity into its place
+	 *
+	 * @param slot The slot of the entity to remove
+	 */
+	private void removeSlot(int slot) {
+		int index = indexOf[slot];
+		int last = size - 1;
+
+		Entity entity = entities[index];
+		if (index != last) {
+			entities[index] = entities[last];
+			slotOf[index] = slotOf[last];
+			indexOf[slotOf[index]] = index;
+		}
+		entities[last] = null;
+		size--;
+
+		if (store != null) {
+			store.swapRemove(index);
+		}
+
+		generations[slot]++;
+		marked[slot] = false;
+		freeSlots[freeCount++] = slot;
+
+		entity.handle = NO_HANDLE;
+		entity.removed();
+		if (entity.pool != null) {
+			entity.pool.release(entity);
+		}
+	}
+
+	/**
+	 * Build a handle from a slot and a generation
+	 *
+	 * @param slot The slot the handle refers to
+	 * @param generation The generation of the slot
+	 * @return The handle
+	 */
+	private static long handle(int slot,int generation) {
+		return ((long) (generation & 0x7fffffff) << 32) | slot;
+	}
+
+	/**
+	 * Get the slot a handle refers to
+	 *
+	 * @param handle The handle
+	 * @return The slot the handle refers to
+	 */
+	private static int slotOf(long handle) {
+		return (int) handle;
+	}
+
+	/**
+	 * Get the generation of the slot a handle refers to
+	 *
+	 * @param handle The handle
+	 * @return The generation of the slot when the handle was given out
+	 */
+	private static int generationOf(long handle) {
+		return (int) (handle >>> 32);
+	}
+}
@@ -0,0 +1,91 @@
+package org.newdawn.spaceinvaders;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Keeps frames to a steady rate by waiting out whatever is left of each
+ * frame's time slot, rather than sleeping a fixed time on top of however
+ * long the frame took. A frame that already used up its slot doesn't wait
+ * at all.
+ *
+ * Sleeping is only accurate to a millisecond or so, so the pacer parks the
+ * thread until shortly before the deadline and then yields in a loop for
+ * the last stretch. A frame that starts after its deadline has missed it,
+ * these are counted and the schedule starts again from the late frame
+ * rather than rushing through frames to catch up.
+ */
+public class FramePacer {
+	/** The frame rate used when none is given */
+	public static final int DEFAULT_FPS = 60;
+	/** The time before the deadline at which parking gives way to yielding (ns) */
+	private static final long SPIN_THRESHOLD = 1000000;
+
+	/** The length of a frame (ns), 0 if frames aren't paced */
+	private long period;
+	/** The time the next frame is due to start (System.nanoTime()), 0 before the first frame */
+	private long deadline;
+	/** The number of frames that started after their deadline */
+	private long missed;
+
+	/**
+	 * Create a new pacer
+	 *
+	 * @param fps The frame rate to aim for, 0 or less to run frames as fast as possible
+	 */
+	public FramePacer(int fps) {
+		this.period = (fps > 0) ? 1000000000L / fps : 0;
+	}
+
+	/**
+	 * Wait until the next frame is due to start
+	 *
+	 * @return True if the frame was already late and no waiting was done
+	 */
+	public boolean awaitNextFrame() {
+		if (period == 0) {
+			return false;
+		}
+
+		long now = System.nanoTime();
+		if (deadline == 0) {
+			deadline = now + period;
+			return false;
+		}
+
+		if (now - deadline > 0) {
+			// we've fallen behind, start the schedule again from here
+			missed++;
+			deadline = now + period;
+			return true;
+		}
+
+		long remaining;
+		while ((remaining = deadline - System.nanoTime()) > SPIN_THRESHOLD) {
+			LockSupport.parkNanos(remaining - SPIN_THRESHOLD);
+		}
+		while (deadline - System.nanoTime() > 0) {
+			Thread.yield();
+		}
+
+		deadline += period;
+		return false;
+	}
+
+	/**
+	 * Get the length of a frame
+	 *
+	 * @return The length of a frame (ns), 0 if frames aren't paced
+	 */
+	public long getPeriod() {
+		return period;
+	}
+
+	/**
+	 * Get the number of frames that started after their deadline
+	 *
+	 * @return The number of missed deadlines
+	 */
+	public long getMissedCount() {
+		return missed;
+	}
+}
@@ -2,10 +2,14 @@ package org.newdawn.spaceinvaders;
 
 import java.awt.Canvas;
 import java.awt.event.KeyEvent;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.swing.JOptionPane;
 
+import org.newdawn.spaceinvaders.metrics.FrameStats;
+
 /**
  * The main hook of our game. This class with both act as a manager
  * for the display and central mediator for the game logic.
@@ -26,18 +30,27 @@ public class Game extends Canvas implements GameWindowCallback {
 	 * 
 	 */
     private static final long serialVersionUID = 1L;
-	/** The list of all the entities that exist in our game */
-	private ArrayList<Entity> entities = new ArrayList<>();
-	/** The list of entities that need to be removed from the game this loop */
-	private ArrayList<Entity> removeList = new ArrayList<>();
+	/** The store holding entity state in flat arrays, null if entities hold their own state */
+	private EntityStore store = Boolean.getBoolean("spaceinvaders.soa") ? new EntityStore() : null;
+	/** The table of all the entities that exist in our game, and those that need to be removed this loop */
+	private EntityTable entities = new EntityTable(store);
+	/** The broadphase used to find entities that might be colliding */
+	private CollisionGrid collisionGrid = new CollisionGrid();
+	/** The mover splitting the move step across threads, null if entities are always moved on the game thread */
+	private ParallelMover parallelMover = Boolean.getBoolean("spaceinvaders.parallel") ?
+			new ParallelMover(Integer.getInteger("spaceinvaders.parallel.threshold",ParallelMover.DEFAULT_THRESHOLD)) : null;
 	/** The entity representing the player */
 	private Entity ship;
 	/** The speed at which the player's ship should move (pixels/sec) */
 	private double moveSpeed = 300;
-	/** The time at which last fired a shot */
-	private long lastFire = 0;
 	/** The interval between our players shot (ms) */
 	private long firingInterval = 500;
+	/** The game time at which last fired a shot */
+	private long lastFire = -firingInterval;
+	/** The speed at which the aliens start moving horizontally (pixels/sec) */
+	private double alienSpeed = 75;
+	/** The formation the aliens march in */
+	private AlienFormation formation;
 	/** The number of aliens left on the screen */
 	private int alienCount;
 
@@ -48,13 +61,32 @@ public class Game extends Canvas implements GameWindowCallback {
 	/** True if game logic needs to be applied this loop, normally as a result of a game event */
 	private boolean logicRequiredThisLoop = false;
 
+	/** The length of a single step of the game logic (ms) */
+	private static final long TICK_LENGTH = 10;
+	/** The most logic steps that will be run in a single frame when catching up */
+	private static final int MAX_TICKS_PER_FRAME = 5;
+	/** The number of shots kept ready to be fired */
+	private static final int SHOT_POOL_SIZE = 64;
 	/** The time at which the last rendering looped started from the point of view of the game logic */
 	private long lastLoopTime = SystemTimer.getTime();
+	/** The time that has passed but hasn't been simulated yet (ms) */
+	private long accumulator;
+	/** The amount of time that has been simulated by the game logic (ms) */
+	private long gameTime;
 	/** The window that is being used to render the game */
 	private GameWindow window;
 	/** True if the fire key has been released */
 	private boolean fireHasBeenReleased = false;
 
+	/** The ID of the sprite used for the player's ship */
+	private int shipSprite;
+	/** The ID of the sprite used for shots */
+	private int shotSprite;
+	/** The IDs of the sprites making up the alien animation */
+	private int[] alienFrames;
+	/** The pool of shots ready to be fired */
+	private EntityPool<ShotEntity> shotPool;
+
 	/** The sprite containing the "Press Any Key" message */
 	private Sprite pressAnyKey;
 	/** The sprite containing the "You win!" message */
@@ -66,6 +98,34 @@ public class Game extends Canvas implements GameWindowCallback {
 	private long lastFpsTime = 0;
 	/** The recorded fps */
 	private int fps;
+	/** The timings of each phase of the frame, published over JMX */
+	private FrameStats frameStats = new FrameStats();
+	/** The pacer keeping frames to a steady rate */
+	private FramePacer framePacer = new FramePacer(Integer.getInteger("spaceinvaders.fps",FramePacer.DEFAULT_FPS));
+	/** True if the game logic runs on its own thread, leaving the window's thread to draw */
+	private boolean separateLogicThread = Boolean.getBoolean("spaceinvaders.logicthread");
+	/** True if each frame runs exactly one logic step without looking at the clock, as headless games do */
+	private boolean fixedStep;
+	/** The exchange passing snapshots from the logic thread to the window's thread, null if both run on the window's thread */
+	private SnapshotExchange snapshots;
+	/** The keys last seen held by the window's thread, passed on to the logic thread */
+	private volatile int heldKeys;
+	/** The time the oldest input not yet acted on was received, 0 if there is none */
+	private long inputTime;
+	/** The time the input acted on by the last frame drawn was received, 0 if it acted on none */
+	private long drawnInputTime;
+	/** The time the oldest input passed on to the logic thread was received, 0 once the logic thread has taken it */
+	private AtomicLong passedInputTime = new AtomicLong();
+	/** The time of the input the window's thread last saw acted on in a snapshot */
+	private volatile long seenInputTime;
+	/** The recorder capturing the input of each logic step, null if the input isn't being recorded */
+	private InputRecorder recorder;
+	/** The factory creating the window and sprites of this game */
+	private ResourceFactory factory;
+	/** True if this game is one of several sessions in the process, so closing it mustn't exit */
+	private boolean hosted;
+	/** True once the game window has been closed */
+	private volatile boolean closed;
 
 	/**
 	 * Construct our game and set it running.
@@ -73,13 +133,47 @@ public class Game extends Canvas implements GameWindowCallback {
 	 * @param renderingType The type of rendering to use (should be one of the contansts from ResourceFactory)
 	 */
 	public Game(int renderingType) {
+		this(renderingType,"game",false);
+	}
+
+	/**
+	 * Construct a game and set it running. The game uses the resource
+	 * factory current on the calling thread.
+	 *
+	 * @param renderingType The type of rendering to use (should be one of the contansts from ResourceFactory)
+	 * @param name The name the game's frame statistics are published under
+	 * @param hosted True if the game is one of several sessions in the process,
+	 * closing it then stops the game rather than exiting and its input isn't recorded
+	 */
+	Game(int renderingType,String name,boolean hosted) {
+		this.hosted = hosted;
+		
+		// nobody watches a headless game, so it is simulated as fast as
+		// it can be run rather than in real time
+		fixedStep = (renderingType == ResourceFactory.HEADLESS);
+
 		// create a window based on a chosen rendering method
-		ResourceFactory.get().setRenderingType(renderingType);
-		window = ResourceFactory.get().getGameWindow();
+		factory = ResourceFactory.get();
+		factory.setRenderingType(renderingType);
+		window = factory.getGameWindow();
 
 		window.setResolution(800,600);
 		window.setGameWindowCallback(this);
 
+		// if asked to, record the input of the session so it can be
+		// replayed. The recording is closed however the game exits
+		String recording = System.getProperty("spaceinvaders.record");
+		if ((recording != null) && (!hosted)) {
+			try {
+				recorder = new InputRecorder(Paths.get(recording));
+			} catch (IOException e) {
+				throw new RuntimeException("Failed to create input recording: "+recording,e);
+			}
+			Runtime.getRuntime().addShutdownHook(new Thread(recorder::close));
+		}
+
+		frameStats.setBackend(factory.getRenderingName());
+		frameStats.register(name);
 		window.startRendering();
 	}
 
@@ -87,14 +181,90 @@ public class Game extends Canvas implements GameWindowCallback {
 	 * Intialise the common elements for the game
 	 */
 	public void initialise() {
-		gotYou = ResourceFactory.get().getSprite("sprites/gotyou.gif");
-		pressAnyKey = ResourceFactory.get().getSprite("sprites/pressanykey.gif");
-		youWin = ResourceFactory.get().getSprite("sprites/youwin.gif");
+		// create all the sprites we're going to use up front, from here
+		// on entities only need to look them up by ID
+		factory.preloadSprites();
+
+		shipSprite = factory.getSpriteId("sprites/ship.gif");
+		shotSprite = factory.getSpriteId("sprites/shot.gif");
+		int alien = factory.getSpriteId("sprites/alien.gif");
+		alienFrames = new int[] {alien,factory.getSpriteId("sprites/alien2.gif"),alien,factory.getSpriteId("sprites/alien3.gif")};
+
+		// shots come and go all the time, so keep hold of them
+		// rather than creating new ones each time the player fires
+		shotPool = new EntityPool<>(() -> new ShotEntity(this,shotSprite,0,0),SHOT_POOL_SIZE);
+		shotPool.fill(SHOT_POOL_SIZE);
+
+		gotYou = factory.getSprite("sprites/gotyou.gif");
+		pressAnyKey = factory.getSprite("sprites/pressanykey.gif");
+		youWin = factory.getSprite("sprites/youwin.gif");
 
 		message = pressAnyKey;
 
 		// setup the initial game state
 		startGame();
+
+		// if asked to, hand the game logic over to a thread of its own
+		if (separateLogicThread && !fixedStep) {
+			snapshots = new SnapshotExchange();
+			publishSnapshot(0);
+
+			Thread logic = new Thread(this::runLogic,"Game logic");
+			logic.setDaemon(true);
+			logic.start();
+		}
+	}
+
+	/**
+	 * Run the game logic on the current thread until the game is closed,
+	 * publishing a snapshot for the window to draw after each step.
+	 * Steps are run at a steady rate of one every TICK_LENGTH, using the
+	 * keys last seen held by the window's thread.
+	 */
+	private void runLogic() {
+		FramePacer pacer = new FramePacer((int) (1000 / TICK_LENGTH));
+
+		// the time of the input acted on, kept in each snapshot until the
+		// window's thread has seen it since it might skip snapshots
+		long unseen = 0;
+
+		while (!closed) {
+			pacer.awaitNextFrame();
+
+			// take the time of the input before the keys, the keys are
+			// always at least as new as the input timed
+			if ((unseen != 0) && (unseen == seenInputTime)) {
+				unseen = 0;
+			}
+			long input = passedInputTime.getAndSet(0);
+			if (unseen == 0) {
+				unseen = input;
+			}
+			step(TICK_LENGTH,heldKeys);
+			publishSnapshot(unseen);
+		}
+	}
+
+	/**
+	 * Copy the state of the game needed for drawing into the back
+	 * snapshot and publish it to the window's thread
+	 *
+	 * @param input The time the oldest input acted on and not yet seen was received, 0 if there is none
+	 */
+	private void publishSnapshot(long input) {
+		RenderSnapshot snapshot = snapshots.getBackSnapshot();
+
+		snapshot.clear();
+		for (int i=0;i<entities.size();i++) {
+			snapshot.add(entities.get(i));
+		}
+		if (waitingForKeyPress) {
+			snapshot.setMessage(message);
+		}
+		snapshot.setTime(System.nanoTime());
+		snapshot.setInputTime(input);
+
+		snapshots.publish();
 	}
 
 	/**
@@ -113,37 +283,90 @@ public class Game extends Canvas implements GameWindowCallback {
 	 */
 	private void initEntities() {
 		// create the player ship and place it roughly in the center of the screen
-		ship = new ShipEntity(this,"sprites/ship.gif",370,550);
-		entities.add(ship);
+		ship = new ShipEntity(this,shipSprite,370,550);
+		addEntity(ship);
 
 		// create a block of aliens (5 rows, by 12 aliens, spaced evenly)
+		formation = new AlienFormation(100,50,12,5,50,30,-alienSpeed);
 		alienCount = 0;
 		for (int row=0;row<5;row++) {
 			for (int x=0;x<12;x++) {
-				Entity alien = new AlienEntity(this,100+(x*50),(50)+row*30);
-				entities.add(alien);
+				Entity alien = new AlienEntity(this,formation,x,row);
+				addEntity(alien);
 				alienCount++;
 			}
 		}
 	}
 
+	/**
+	 * Get the timings of each phase of this game's frames
+	 *
+	 * @return The frame statistics of this game
+	 */
+	public FrameStats getFrameStats() {
+		return frameStats;
+	}
+
+	/**
+	 * Get the IDs of the sprites making up the alien animation. The
+	 * array is shared by all aliens and must not be changed.
+	 *
+	 * @return The IDs of the sprites of each animation frame
+	 */
+	int[] getAlienFrames() {
+		return alienFrames;
+	}
+
 	/**
 	 * Notification from a game entity that the logic of the game
 	 * should be run at the next opportunity (normally as a result of some
 	 * game event)
 	 */
 	public void updateLogic() {
+		ParallelMover.Effects effects = ParallelMover.currentEffects();
+		if (effects != null) {
+			effects.updateLogic();
+			return;
+		}
+
 		logicRequiredThisLoop = true;
 	}
 
+	/**
+	 * Add an entity to the game. The entity will be moved and drawn
+	 * from the next loop onwards.
+	 *
+	 * @param entity The entity that should be added
+	 */
+	void addEntity(Entity entity) {
+		entities.addEntity(entity);
+	}
+
 	/**
 	 * Remove an entity from the game. The entity removed will
-	 * no longer move or be drawn.
+	 * no longer move or be drawn. Removing the same entity more
+	 * than once in a loop has no further effect.
 	 *
 	 * @param entity The entity that should be removed
 	 */
 	public void removeEntity(Entity entity) {
-		removeList.add(entity);
+		ParallelMover.Effects effects = ParallelMover.currentEffects();
+		if (effects != null) {
+			effects.removeEntity(entity);
+			return;
+		}
+
+		entities.markForRemoval(entity);
+	}
+
+	/**
+	 * Check if an entity has been removed from the game during this loop
+	 *
+	 * @param entity The entity to check
+	 * @return True if the entity is due to be removed at the end of this loop
+	 */
+	boolean isRemoved(Entity entity) {
+		return entities.isMarkedForRemoval(entity);
 	}
 
 	/**
@@ -167,6 +390,12 @@ public class Game extends Canvas implements GameWindowCallback {
 	 * Notification that an alien has been killed
 	 */
 	public void notifyAlienKilled() {
+		ParallelMover.Effects effects = ParallelMover.currentEffects();
+		if (effects != null) {
+			effects.notifyAlienKilled();
+			return;
+		}
+
 		// reduce the alient count, if there are none left, the player has won!
 		alienCount--;
 
@@ -174,16 +403,9 @@ public class Game extends Canvas implements GameWindowCallback {
 			notifyWin();
 		}
 
-		// if there are still some aliens left then they all need to get faster, so
-		// speed up all the existing aliens
-		for (int i=0;i<entities.size();i++) {
-			Entity entity = entities.get(i);
-
-			if (entity instanceof AlienEntity) {
-				// speed up by 2%
-				entity.setHorizontalMovement(entity.getHorizontalMovement() * 1.02);
-			}
-		}
+		// if there are still some aliens left then they all need to get faster,
+		// they share the speed of the formation so speed that up by 2%
+		formation.speedUp(1.02);
 	}
 
 	/**
@@ -193,30 +415,51 @@ public class Game extends Canvas implements GameWindowCallback {
 	 */
 	public void tryToFire() {
 		// check that we have waiting long enough to fire
-		if (System.currentTimeMillis() - lastFire < firingInterval) {
+		if (gameTime - lastFire < firingInterval) {
 			return;
 		}
 
 		// if we waited long enough, create the shot entity, and record the time.
-		lastFire = System.currentTimeMillis();
-		ShotEntity shot = new ShotEntity(this, "sprites/shot.gif",ship.getX()+10,ship.getY()-30);
-		entities.add(shot);
+		lastFire = gameTime;
+		ShotEntity shot = shotPool.acquire();
+		shot.setLocation(ship.getX()+10,ship.getY()-30);
+		shot.storePreviousLocation();
+		addEntity(shot);
 	}
 
 	/**
 	 * Notification that a frame is being rendered. Responsible for
 	 * running game logic and rendering the scene.
+	 *
+	 * The game logic is run in fixed steps of TICK_LENGTH, however long
+	 * the frame took. Any time left over is carried to the next frame and
+	 * used to draw the entities part way between the last two steps.
+	 * Headless games don't wait for the clock, each frame runs a single
+	 * step straight away.
 	 */
 	public void frameRendering() {
-		try {
-			Thread.sleep(10);
-		} catch (InterruptedException e) {
-			e.printStackTrace();
+		if (fixedStep) {
+			step(TICK_LENGTH,pollKeys());
+			
+			long drawStart = System.nanoTime();
+			render(1);
+			frameStats.lap(FrameStats.DRAW,drawStart);
+			frameDrawn(inputTime);
+			inputTime = 0;
+			return;
+		}
+		
+		// wait out the rest of the last frame's time slot, if the last
+		// frame overran there's no waiting to be done
+		long sleepStart = System.nanoTime();
+		if (framePacer.awaitNextFrame()) {
+			frameStats.deadlineMissed();
 		}
+		frameStats.lap(FrameStats.SLEEP,sleepStart);
 
 		// work out how long its been since the last update, this
-		// will be used to calculate how far the entities should
-		// move this loop
+		// will be used to calculate how many logic steps should
+		// be run this loop
 		long delta = SystemTimer.getTime() - lastLoopTime;
 		lastLoopTime = SystemTimer.getTime();
 		lastFpsTime += delta;
@@ -229,44 +472,203 @@ public class Game extends Canvas implements GameWindowCallback {
 			fps = 0;
 		}
 
-		// cycle round asking each entity to move itself
-		if (!waitingForKeyPress) {
-			for (int i=0;i<entities.size();i++) {
-				Entity entity = (Entity) entities.get(i);
+		// if the logic has its own thread, pass on the keys and draw the
+		// latest snapshot it published, part way to the step after it.
+		// Escape is dealt with here so the window is closed from its own
+		// thread, and is kept from the logic thread so it isn't seen twice
+		if (snapshots != null) {
+			int keys = pollKeys();
+			if ((keys & InputRecorder.KEY_ESCAPE) != 0) {
+				windowClosed();
+			}
+			heldKeys = keys & ~InputRecorder.KEY_ESCAPE;
+			if (inputTime != 0) {
+				passedInputTime.compareAndSet(0,inputTime);
+				inputTime = 0;
+			}
 
-				entity.move(delta);
+			long drawStart = System.nanoTime();
+			RenderSnapshot snapshot = snapshots.acquire();
+			double alpha = (double) (System.nanoTime() - snapshot.getTime()) / (TICK_LENGTH * 1000000);
+			snapshot.draw(Math.min(1,alpha));
+			frameStats.lap(FrameStats.DRAW,drawStart);
+			long input = snapshot.getInputTime();
+			if (input == seenInputTime) {
+				input = 0;
+			} else {
+				seenInputTime = input;
 			}
+			frameDrawn(input);
+			return;
 		}
 
-		// cycle round drawing all the entities we have in the game
-		for (int i=0;i<entities.size();i++) {
-			Entity entity = entities.get(i);
-			entity.draw();
+		// run as many logic steps as fit in the time that has passed. If
+		// we're too far behind only run a few and forget about the rest,
+		// otherwise a slow frame leads to an even slower one
+		accumulator += delta;
+		int ticks = 0;
+		while ((accumulator >= TICK_LENGTH) && (ticks < MAX_TICKS_PER_FRAME)) {
+			step(TICK_LENGTH,pollKeys());
+			accumulator -= TICK_LENGTH;
+			ticks++;
+		}
+		if (accumulator >= TICK_LENGTH) {
+			accumulator %= TICK_LENGTH;
 		}
 
-		// brute force collisions, compare every entity against
-		// every other entity. If any of them collide notify
-		// both entities that the collision has occured
-		for (int p=0;p<entities.size();p++) {
-			for (int s=p+1;s<entities.size();s++) {
-				Entity me = (Entity) entities.get(p);
-				Entity him = (Entity) entities.get(s);
+		long drawStart = System.nanoTime();
+		render((double) accumulator / TICK_LENGTH);
+		frameStats.lap(FrameStats.DRAW,drawStart);
+		frameDrawn(inputTime);
+		inputTime = 0;
+	}
 
-				if (me.collidesWith(him)) {
-					me.collidedWith(him);
-					him.collidedWith(me);
+	/**
+	 * Notification that a frame has been drawn, recording the latency of
+	 * the input it acted on if there was any
+	 *
+	 * @param input The time the oldest input acted on by the frame was received, 0 if it acted on none
+	 */
+	private void frameDrawn(long input) {
+		if (input != 0) {
+			frameStats.inputDrawn(input);
+		}
+		drawnInputTime = input;
+		frameStats.frameCompleted();
+	}
+
+	/**
+	 * Notification that the frame just drawn has been shown, recording
+	 * the latency of the input it acted on if there was any
+	 */
+	public void frameShown() {
+		if (drawnInputTime != 0) {
+			frameStats.inputShown(drawnInputTime);
+			drawnInputTime = 0;
+		}
+	}
+
+	/**
+	 * Run a single step of the game logic, recording the keys held if
+	 * the session is being recorded
+	 *
+	 * @param delta The amount of time to simulate (ms)
+	 * @param keys The keys held during the step (a combination of the InputRecorder.KEY_ bits)
+	 */
+	private void step(long delta,int keys) {
+		if (recorder != null) {
+			recorder.record(keys,delta);
+		}
+
+		tick(delta,keys);
+	}
+
+	/**
+	 * Get the keys the game logic acts on that are currently held
+	 *
+	 * @return The keys held (a combination of the InputRecorder.KEY_ bits)
+	 */
+	private int pollKeys() {
+		int keys = 0;
+
+		window.pollInput();
+		if (inputTime == 0) {
+			inputTime = window.getInputTime();
+		}
+
+		if (window.isKeyPressed(KeyEvent.VK_LEFT)) {
+			keys |= InputRecorder.KEY_LEFT;
+		}
+		if (window.isKeyPressed(KeyEvent.VK_RIGHT)) {
+			keys |= InputRecorder.KEY_RIGHT;
+		}
+		if (window.isKeyPressed(KeyEvent.VK_SPACE)) {
+			keys |= InputRecorder.KEY_FIRE;
+		}
+		if (window.isKeyPressed(KeyEvent.VK_ESCAPE)) {
+			keys |= InputRecorder.KEY_ESCAPE;
+		}
+
+		return keys;
+	}
+
+	/**
+	 * Run a single step of the game logic. The outcome depends only on
+	 * the state of the game, the length of the step and the keys held,
+	 * never on the clock.
+	 *
+	 * @param delta The amount of time to simulate (ms)
+	 * @param keys The keys held during the step (a combination of the InputRecorder.KEY_ bits)
+	 */
+	void tick(long delta,int keys) {
+		gameTime += delta;
+		long mark = System.nanoTime();
+
+		// march the alien formation, if it has reached the side of the
+		// screen request a logic update to turn it round. The aliens
+		// themselves follow the formation as they're moved
+		if (!waitingForKeyPress) {
+			if (formation.isAtEdge()) {
+				updateLogic();
+			}
+			formation.move(delta);
+		}
+
+		// cycle round asking each entity to move itself, keeping
+		// hold of where it was so we can draw between the two. The
+		// store sweeps its arrays rather than going through each entity
+		if (store != null) {
+			store.storePreviousLocations();
+		}
+		if ((parallelMover != null) && (parallelMover.isParallel(entities.size()))) {
+			// with a big enough crowd split the entities across threads,
+			// anything they report back is passed on once they're all done
+			parallelMover.move(this,entities,store,delta,!waitingForKeyPress);
+		} else if (store != null) {
+			if (!waitingForKeyPress) {
+				store.move(0,store.size(),delta);
+			}
+		} else {
+			for (int i=0;i<entities.size();i++) {
+				Entity entity = (Entity) entities.get(i);
+
+				entity.storePreviousLocation();
+				if (!waitingForKeyPress) {
+					entity.move(delta);
 				}
 			}
 		}
 
+		mark = frameStats.lap(FrameStats.MOVE,mark);
+
+		// resolve collisions, only entities that share a cell of the
+		// collision grid are compared against each other. If any of
+		// them collide both entities are notified that the collision
+		// has occured
+		if (store != null) {
+			collisionGrid.resolve(store);
+		} else {
+			collisionGrid.resolve(entities);
+		}
+		mark = frameStats.lap(FrameStats.COLLISION,mark);
+
 		// remove any entity that has been marked for clear up
-		entities.removeAll(removeList);
-		removeList.clear();
+		entities.removeMarked();
+		mark = frameStats.lap(FrameStats.REMOVAL,mark);
 
 		// if a game event has indicated that game logic should
-		// be resolved, cycle round every entity requesting that
-		// their personal logic should be considered.
+		// be resolved, turn the alien formation round and move it
+		// down the screen, then cycle round every entity requesting
+		// that their personal logic should be considered.
 		if (logicRequiredThisLoop) {
+			formation.flip();
+
+			// if the aliens have reached the bottom of the screen
+			// then the player dies
+			if (formation.hasLanded()) {
+				notifyDeath();
+			}
+
 			for (int i=0;i<entities.size();i++) {
 				Entity entity = (Entity) entities.get(i);
 				entity.doLogic();
@@ -274,21 +676,16 @@ public class Game extends Canvas implements GameWindowCallback {
 
 			logicRequiredThisLoop = false;
 		}
-
-		// if we're waiting for an "any key" press then draw the
-		// current message
-		if (waitingForKeyPress) {
-			message.draw(325,250);
-		}
+		mark = frameStats.lap(FrameStats.LOGIC,mark);
 
 		// resolve the movemfent of the ship. First assume the ship
 		// isn't moving. If either cursor key is pressed then
 		// update the movement appropraitely
 		ship.setHorizontalMovement(0);
 
-		boolean leftPressed = window.isKeyPressed(KeyEvent.VK_LEFT);
-		boolean rightPressed = window.isKeyPressed(KeyEvent.VK_RIGHT);
-		boolean firePressed = window.isKeyPressed(KeyEvent.VK_SPACE);
+		boolean leftPressed = (keys & InputRecorder.KEY_LEFT) != 0;
+		boolean rightPressed = (keys & InputRecorder.KEY_RIGHT) != 0;
+		boolean firePressed = (keys & InputRecorder.KEY_FIRE) != 0;
 
 		if (!waitingForKeyPress) {
 			if ((leftPressed) && (!rightPressed)) {
@@ -313,17 +710,66 @@ public class Game extends Canvas implements GameWindowCallback {
 		}
 
 		// if escape has been pressed, stop the game
-		if (window.isKeyPressed(KeyEvent.VK_ESCAPE)) {
+		if ((keys & InputRecorder.KEY_ESCAPE) != 0) {
 			windowClosed();
 		}
+		frameStats.lap(FrameStats.INPUT,mark);
+		frameStats.tickCompleted(entities.size(),alienCount);
+	}
+
+	/**
+	 * Draw the current state of the game
+	 *
+	 * @param alpha How far we are between the last two logic steps, from 0 to 1
+	 */
+	private void render(double alpha) {
+		// cycle round drawing all the entities we have in the game
+		for (int i=0;i<entities.size();i++) {
+			Entity entity = entities.get(i);
+			entity.draw(alpha);
+		}
+
+		// if we're waiting for an "any key" press then draw the
+		// current message
+		if (waitingForKeyPress) {
+			message.draw(325,250);
+		}
+	}
+
+	/**
+	 * Work out a checksum of the state of the game: the location and
+	 * sprite of every entity, the aliens left and the time simulated. Two
+	 * games that have played out the same way give the same checksum.
+	 *
+	 * @return The checksum of the game state
+	 */
+	long checksum() {
+		long sum = gameTime;
+
+		sum = (sum * 31) + alienCount;
+		sum = (sum * 31) + (waitingForKeyPress ? 1 : 0);
+		for (int i=0;i<entities.size();i++) {
+			Entity entity = entities.get(i);
+
+			sum = (sum * 31) + entity.getX();
+			sum = (sum * 31) + entity.getY();
+			sum = (sum * 31) + entity.getSpriteId();
+		}
+
+		return sum;
 	}
 
 	/**
 	 * Notification that the game window has been closed
 	 */
 	public void windowClosed() {
+		closed = true;
 		window.stopRendering();
-		System.exit(0);
+
+		// a hosted game is only one of many, leave the process running
+		if (!hosted) {
+			System.exit(0);
+		}
 	}
 
 	/**
@@ -334,15 +780,23 @@ public class Game extends Canvas implements GameWindowCallback {
 	 * @param argv The arguments that are passed into our game
 	 */
 	public static void main(String argv[]) {
-		int result = JOptionPane.showOptionDialog(null,"Java2D or OpenGL?","Java2D or OpenGL?",JOptionPane.YES_NO_CANCEL_OPTION,JOptionPane.QUESTION_MESSAGE,null,new String[] {"Java2D","LWJGL", "JOGL Frame","JOGL with GLWindow"},null);
-		
+		int result = -1;
+
 		if(argv.length > 0) {
 			for(String s : argv) {
 				if(s.equalsIgnoreCase("JOGL")) {
 					result = 2;
+				} else if(s.equalsIgnoreCase("HEADLESS")) {
+					result = 4;
 				}
 			}
 		}
+
+		// only ask for the rendering method if it wasn't given, there might
+		// not be a display to show the question on
+		if (result == -1) {
+			result = JOptionPane.showOptionDialog(null,"Java2D or OpenGL?","Java2D or OpenGL?",JOptionPane.YES_NO_CANCEL_OPTION,JOptionPane.QUESTION_MESSAGE,null,new String[] {"Java2D","LWJGL", "JOGL Frame","JOGL with GLWindow"},null);
+		}
 		
 		if (result == 0) {
 			new Game(ResourceFactory.JAVA2D);
@@ -352,6 +806,8 @@ public class Game extends Canvas implements GameWindowCallback {
 			new Game(ResourceFactory.OPENGL_JOGL);
 		} else if (result == 3) {
 			new Game(ResourceFactory.OPENGL_JOGL_GLWINDOW);
+		} else if (result == 4) {
+			new Game(ResourceFactory.HEADLESS);
 		}
 	}
 }
@@ -53,6 +53,22 @@ public interface GameWindow {
 	 */
 	public void setGameWindowCallback(GameWindowCallback callback);
 	
+	/**
+	 * Bring the status of the keys up to date with the input received
+	 * since the last poll. Called once per logic step, before the keys
+	 * are checked, and always from the thread checking them.
+	 */
+	public void pollInput();
+	
+	/**
+	 * Get the time the oldest key event brought in by the last call to
+	 * pollInput() was received, used to measure the input latency of
+	 * the window
+	 * 
+	 * @return The value of System.nanoTime() when the event was received, 0 if the poll found no new events
+	 */
+	public long getInputTime();
+	
 	/**
 	 * Check if a particular key is pressed
 	 * 
@@ -19,6 +19,12 @@ public interface GameWindowCallback {
 	 */
 	public void frameRendering();
 	
+	/**
+	 * Notification that the frame just rendered has been shown, i.e.
+	 * the window's buffers have been swapped.
+	 */
+	public void frameShown();
+	
 	/**
 	 * Notification that game window has been closed.
 	 */
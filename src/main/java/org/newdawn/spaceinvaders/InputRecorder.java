@@ -0,0 +1,159 @@
+package org.newdawn.spaceinvaders;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Records the input the game acts on during each logic step, so that a
+ * session can be played back later by InputReplay. Since the game logic
+ * only depends on the keys held and the length of each step, replaying
+ * the same input from a fresh game gives exactly the same game.
+ *
+ * The keys held during a step are packed into the bits of a single int
+ * (see the KEY_ constants). Players hold the same keys for many steps at
+ * a time, so the log is written as runs: the keys, the step length and
+ * the number of steps in a row they stayed the same. Each run takes five
+ * bytes, the log starts with a small header identifying it.
+ */
+public class InputRecorder {
+	/** The bit set while the left cursor key is held */
+	public static final int KEY_LEFT = 1;
+	/** The bit set while the right cursor key is held */
+	public static final int KEY_RIGHT = 2;
+	/** The bit set while the fire key is held */
+	public static final int KEY_FIRE = 4;
+	/** The bit set while the escape key is held */
+	public static final int KEY_ESCAPE = 8;
+
+	/** The value the log starts with */
+	static final int MAGIC = 0x53495250;
+	/** The version of the log format */
+	static final int VERSION = 1;
+	/** The number of bytes in the header */
+	static final int HEADER_SIZE = 8;
+	/** The number of bytes in each run */
+	static final int RUN_SIZE = 5;
+	/** The longest run, or step length, that fits in the log */
+	static final int MAX_UNSIGNED_SHORT = 0xffff;
+
+	/** The file being written */
+	private Path file;
+	/** The channel writing to the file */
+	private FileChannel channel;
+	/** The runs waiting to be written */
+	private ByteBuffer buffer = ByteBuffer.allocateDirect(4096);
+	/** The keys held during the current run */
+	private int keys;
+	/** The step length of the current run (ms) */
+	private int delta;
+	/** The number of steps in the current run, 0 if there's no run yet */
+	private int count;
+	/** The total number of steps recorded */
+	private long steps;
+
+	/**
+	 * Create a new recorder writing to a file, any existing file is replaced
+	 *
+	 * @param file The file to write the recording to
+	 * @throws IOException Indicates a failure to open the file
+	 */
+	public InputRecorder(Path file) throws IOException {
+		this.file = file;
+		channel = FileChannel.open(file,StandardOpenOption.CREATE,StandardOpenOption.TRUNCATE_EXISTING,StandardOpenOption.WRITE);
+
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+	}
+
+	/**
+	 * Record the input of a single logic step. Steps recorded after the
+	 * recorder has been closed are ignored, the game may still be running
+	 * while the recording is closed on the way out.
+	 *
+	 * @param keys The keys held during the step (a combination of the KEY_ bits)
+	 * @param delta The length of the step (ms)
+	 */
+	public synchronized void record(int keys,long delta) {
+		if (delta > MAX_UNSIGNED_SHORT) {
+			throw new IllegalArgumentException("Logic step too long to record: "+delta);
+		}
+		if (!channel.isOpen()) {
+			return;
+		}
+
+		steps++;
+		if ((count > 0) && (keys == this.keys) && (delta == this.delta) && (count < MAX_UNSIGNED_SHORT)) {
+			count++;
+			return;
+		}
+
+		endRun();
+		this.keys = keys;
+		this.delta = (int) delta;
+		this.count = 1;
+	}
+
+	/**
+	 * Get the number of logic steps recorded so far
+	 *
+	 * @return The number of steps recorded
+	 */
+	public synchronized long getStepCount() {
+		return steps;
+	}
+
+	/**
+	 * Write out everything recorded and close the file
+	 */
+	public synchronized void close() {
+		if (!channel.isOpen()) {
+			return;
+		}
+
+		endRun();
+		try {
+			flush();
+			channel.close();
+		} catch (IOException e) {
+			throw new RuntimeException("Failed to write input recording: "+file,e);
+		}
+	}
+
+	/**
+	 * Add the current run to the buffer, writing the buffer out if it's full
+	 */
+	private void endRun() {
+		if (count == 0) {
+			return;
+		}
+
+		if (buffer.remaining() < RUN_SIZE) {
+			try {
+				flush();
+			} catch (IOException e) {
+				throw new RuntimeException("Failed to write input recording: "+file,e);
+			}
+		}
+
+		buffer.put((byte) keys);
+		buffer.putShort((short) delta);
+		buffer.putShort((short) count);
+		count = 0;
+	}
+
+	/**
+	 * Write the buffer out to the file
+	 *
+	 * @throws IOException Indicates a failure to write to the file
+	 */
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
@@ -0,0 +1,148 @@
+package org.newdawn.spaceinvaders;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import org.newdawn.spaceinvaders.headless.HeadlessGameWindow;
+
+/**
+ * Plays back a recording made by InputRecorder. The recorded steps are
+ * fed straight into the game logic one after another, without a display
+ * and without waiting on the clock, so a session plays back as fast as
+ * the game logic can run. A replay always gives the same game as the one
+ * recorded, which makes recordings useful as repeatable workloads for
+ * measuring performance and for tracking down changes in game play.
+ *
+ * Run from the command line with the recording to play, the number of
+ * steps, the time taken and a checksum of the final game state are
+ * printed once the replay is done.
+ */
+public class InputReplay {
+	/** The recording being played */
+	private ByteBuffer buffer;
+	/** The keys held during the current step */
+	private int keys;
+	/** The length of the current step (ms) */
+	private int delta;
+	/** The number of steps left in the current run */
+	private int remaining;
+
+	/**
+	 * Load a recording to play back
+	 *
+	 * @param file The file holding the recording
+	 * @throws IOException Indicates a failure to read the file, or that it isn't a recording
+	 */
+	public InputReplay(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file,StandardOpenOption.READ)) {
+			buffer = ByteBuffer.allocate((int) channel.size());
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer) < 0) {
+					break;
+				}
+			}
+		}
+		buffer.flip();
+
+		if ((buffer.remaining() < InputRecorder.HEADER_SIZE) || (buffer.getInt() != InputRecorder.MAGIC)) {
+			throw new IOException("Not an input recording: "+file);
+		}
+		int version = buffer.getInt();
+		if (version != InputRecorder.VERSION) {
+			throw new IOException("Unsupported input recording version "+version+": "+file);
+		}
+	}
+
+	/**
+	 * Move on to the next recorded step
+	 *
+	 * @return True if there was another step, false if the recording has ended
+	 */
+	public boolean next() {
+		if (remaining == 0) {
+			if (buffer.remaining() < InputRecorder.RUN_SIZE) {
+				return false;
+			}
+
+			keys = buffer.get() & 0xff;
+			delta = buffer.getShort() & InputRecorder.MAX_UNSIGNED_SHORT;
+			remaining = buffer.getShort() & InputRecorder.MAX_UNSIGNED_SHORT;
+		}
+
+		remaining--;
+		return true;
+	}
+
+	/**
+	 * Get the keys held during the current step
+	 *
+	 * @return The keys held (a combination of the InputRecorder.KEY_ bits)
+	 */
+	public int getKeys() {
+		return keys;
+	}
+
+	/**
+	 * Get the length of the current step
+	 *
+	 * @return The length of the step (ms)
+	 */
+	public long getDelta() {
+		return delta;
+	}
+
+	/**
+	 * Play the rest of the recording into a game. Playback stops early at
+	 * the step where escape was pressed, since that would close the game.
+	 *
+	 * @param game The game to play the recording into, which should be freshly initialised
+	 * @return The number of steps played
+	 */
+	public long play(Game game) {
+		long steps = 0;
+
+		while (next()) {
+			if ((keys & InputRecorder.KEY_ESCAPE) != 0) {
+				break;
+			}
+
+			game.tick(delta,keys);
+			steps++;
+		}
+
+		return steps;
+	}
+
+	/**
+	 * Play a recording into a headless game as fast as possible
+	 *
+	 * @param argv The arguments passed on the command line, the recording to play
+	 * @throws IOException Indicates a failure to read the recording
+	 */
+	public static void main(String argv[]) throws IOException {
+		if (argv.length < 1) {
+			System.err.println("Usage: InputReplay <recording>");
+			System.exit(1);
+		}
+
+		InputReplay replay = new InputReplay(Paths.get(argv[0]));
+
+		// create a game that has been initialised but isn't running,
+		// the replay drives its logic instead
+		ResourceFactory.get().setRenderingType(ResourceFactory.HEADLESS);
+		((HeadlessGameWindow) ResourceFactory.get().getGameWindow()).setMaxFrames(0);
+		Game game = new Game(ResourceFactory.HEADLESS);
+
+		long start = System.nanoTime();
+		long steps = replay.play(game);
+		long time = System.nanoTime() - start;
+
+		System.out.println("Steps:    "+steps);
+		System.out.println("Time:     "+(time / 1000000)+" ms ("+((steps * 1000000000L) / Math.max(1,time))+" steps/sec)");
+		System.out.println("Checksum: "+Long.toHexString(game.checksum()));
+	}
+}
@@ -0,0 +1,245 @@
+package org.newdawn.spaceinvaders;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits the move step of the game across a fork/join pool once there are
+ * enough entities to make it worth while. The entities are cut into fixed
+ * chunks by their index in the entity list, each chunk is moved by a single
+ * worker. Entities held in an EntityStore are moved by sweeping the store's
+ * arrays for the slots of the chunk.
+ *
+ * Entities call back into the game as they move (requesting a logic update
+ * or asking to be removed), the game can't safely be changed from several
+ * threads at once so while a chunk is being moved these calls are collected
+ * in a buffer owned by that chunk. Once every chunk has been moved the buffers
+ * are handed to the game in chunk order, which gives exactly the same result
+ * as moving the entities one after another.
+ */
+public class ParallelMover {
+	/** The default number of entities at which the move is split across threads */
+	public static final int DEFAULT_THRESHOLD = 2000;
+	/** The number of entities moved by each task */
+	private static final int CHUNK_SIZE = 256;
+
+	/** The buffer for the chunk being moved on the current thread, null if no chunk is being moved */
+	private static final ThreadLocal<Effects> CURRENT = new ThreadLocal<>();
+
+	/** The pool running the chunks */
+	private ForkJoinPool pool;
+	/** The number of entities at which the move is split across threads */
+	private int threshold;
+	/** The side effect buffer for each chunk */
+	private Effects[] effects = new Effects[0];
+
+	/**
+	 * Create a new mover using the JVM's common fork/join pool. The pool
+	 * is shared, so games running side by side in one process (see
+	 * SessionHost) don't each start a thread per processor of their own.
+	 *
+	 * @param threshold The number of entities at which the move is split across threads
+	 */
+	public ParallelMover(int threshold) {
+		this(ForkJoinPool.commonPool(),threshold);
+	}
+
+	/**
+	 * Create a new mover
+	 *
+	 * @param pool The pool to run the chunks on
+	 * @param threshold The number of entities at which the move is split across threads
+	 */
+	public ParallelMover(ForkJoinPool pool,int threshold) {
+		this.pool = pool;
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Check if a given number of entities is enough to split the move
+	 *
+	 * @param count The number of entities to be moved
+	 * @return True if the move should be split across threads
+	 */
+	public boolean isParallel(int count) {
+		return count >= threshold;
+	}
+
+	/**
+	 * Move every entity in the list, in parallel chunks, and then pass on
+	 * the side effects the entities raised to the game.
+	 *
+	 * @param game The game the entities belong to
+	 * @param entities The entities to move
+	 * @param store The store holding the entities, which has already remembered their
+	 * locations, or null if each entity holds its own state and should remember its location
+	 * @param delta The ammount of time that has passed in milliseconds
+	 * @param move True if the entities should actually move
+	 */
+	public void move(Game game,List<Entity> entities,EntityStore store,long delta,boolean move) {
+		int count = entities.size();
+		int chunks = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+		if (effects.length < chunks) {
+			Effects[] grown = new Effects[chunks];
+			System.arraycopy(effects,0,grown,0,effects.length);
+			for (int i=effects.length;i<chunks;i++) {
+				grown[i] = new Effects();
+			}
+			effects = grown;
+		}
+
+		pool.invoke(new MoveTask(entities,store,0,chunks,delta,move));
+
+		// hand the side effects over in chunk order, the same order
+		// they would have been raised moving one entity at a time
+		for (int i=0;i<chunks;i++) {
+			effects[i].apply(game);
+		}
+	}
+
+	/**
+	 * Get the side effect buffer for the chunk being moved on the
+	 * calling thread.
+	 *
+	 * @return The buffer to record side effects in, or null if the caller isn't moving a chunk
+	 */
+	static Effects currentEffects() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * The side effects raised by the entities in a single chunk
+	 */
+	static class Effects {
+		/** The entities that asked to be removed, in the order they asked */
+		private ArrayList<Entity> removed = new ArrayList<>();
+		/** True if an entity requested a logic update */
+		private boolean logicRequired;
+		/** The number of aliens reported killed */
+		private int aliensKilled;
+
+		/**
+		 * Record that an entity should be removed
+		 *
+		 * @param entity The entity to remove
+		 */
+		void removeEntity(Entity entity) {
+			removed.add(entity);
+		}
+
+		/**
+		 * Record that the game logic should be run
+		 */
+		void updateLogic() {
+			logicRequired = true;
+		}
+
+		/**
+		 * Record that an alien has been killed
+		 */
+		void notifyAlienKilled() {
+			aliensKilled++;
+		}
+
+		/**
+		 * Pass the recorded side effects on to the game and empty the buffer
+		 *
+		 * @param game The game to notify
+		 */
+		private void apply(Game game) {
+			for (int i=0;i<removed.size();i++) {
+				game.removeEntity(removed.get(i));
+			}
+			if (logicRequired) {
+				game.updateLogic();
+			}
+			for (int i=0;i<aliensKilled;i++) {
+				game.notifyAlienKilled();
+			}
+
+			removed.clear();
+			logicRequired = false;
+			aliensKilled = 0;
+		}
+	}
+
+	/**
+	 * A task moving a range of chunks, split in half until a single chunk remains
+	 */
+	private class MoveTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		/** The entities being moved */
+		private List<Entity> entities;
+		/** The store holding the entities, null if each entity holds its own state */
+		private EntityStore store;
+		/** The first chunk to move */
+		private int from;
+		/** The chunk after the last one to move */
+		private int to;
+		/** The ammount of time that has passed in milliseconds */
+		private long delta;
+		/** True if the entities should actually move */
+		private boolean move;
+
+		/**
+		 * Create a new task
+		 *
+		 * @param entities The entities being moved
+		 * @param store The store holding the entities, null if each entity holds its own state
+		 * @param from The first chunk to move
+		 * @param to The chunk after the last one to move
+		 * @param delta The ammount of time that has passed in milliseconds
+		 * @param move True if the entities should actually move
+		 */
+		MoveTask(List<Entity> entities,EntityStore store,int from,int to,long delta,boolean move) {
+			this.entities = entities;
+			this.store = store;
+			this.from = from;
+			this.to = to;
+			this.delta = delta;
+			this.move = move;
+		}
+
+		/**
+		 * Move the chunks, splitting the work in two if there's more than one
+		 */
+		protected void compute() {
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new MoveTask(entities,store,from,middle,delta,move),
+						  new MoveTask(entities,store,middle,to,delta,move));
+				return;
+			}
+
+			int start = from * CHUNK_SIZE;
+			int end = Math.min(entities.size(),start + CHUNK_SIZE);
+
+			CURRENT.set(effects[from]);
+			try {
+				if (store != null) {
+					// the store has already remembered the locations and
+					// each entity's slot is the same as its index
+					if (move) {
+						store.move(start,end,delta);
+					}
+					return;
+				}
+
+				for (int i=start;i<end;i++) {
+					Entity entity = entities.get(i);
+
+					entity.storePreviousLocation();
+					if (move) {
+						entity.move(delta);
+					}
+				}
+			} finally {
+				CURRENT.remove();
+			}
+		}
+	}
+}
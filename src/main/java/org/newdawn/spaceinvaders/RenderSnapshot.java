@@ -0,0 +1,141 @@
+package org.newdawn.spaceinvaders;
+
+import java.util.Arrays;
+
+/**
+ * A copy of everything needed to draw the game at the end of a single
+ * logic step: the previous and current location and sprite of each
+ * entity, along with the message being shown. When the game logic runs
+ * on its own thread it fills in a snapshot after each step and hands it
+ * over to the rendering thread, which draws from the snapshot without
+ * touching the entities themselves.
+ *
+ * Once handed over a snapshot isn't changed again until the renderer
+ * has given it back, see SnapshotExchange.
+ */
+public class RenderSnapshot {
+	/** The number of entities in the snapshot */
+	private int count;
+	/** The x location of each entity before the logic step */
+	private double[] previousX = new double[64];
+	/** The y location of each entity before the logic step */
+	private double[] previousY = new double[64];
+	/** The x location of each entity after the logic step */
+	private double[] x = new double[64];
+	/** The y location of each entity after the logic step */
+	private double[] y = new double[64];
+	/** The sprite of each entity */
+	private Sprite[] sprites = new Sprite[64];
+	/** The message to draw over the entities, null if there is none */
+	private Sprite message;
+	/** The time the snapshot was taken (System.nanoTime()) */
+	private long time;
+	/** The time the oldest input acted on and not yet seen by the renderer was received (System.nanoTime()), 0 if there is none */
+	private long inputTime;
+
+	/**
+	 * Empty the snapshot so it can be filled again
+	 */
+	void clear() {
+		count = 0;
+		message = null;
+	}
+
+	/**
+	 * Add an entity to the snapshot
+	 *
+	 * @param entity The entity to copy
+	 */
+	void add(Entity entity) {
+		if (count == x.length) {
+			int capacity = count * 2;
+			previousX = Arrays.copyOf(previousX,capacity);
+			previousY = Arrays.copyOf(previousY,capacity);
+			x = Arrays.copyOf(x,capacity);
+			y = Arrays.copyOf(y,capacity);
+			sprites = Arrays.copyOf(sprites,capacity);
+		}
+
+		previousX[count] = entity.getPreviousX();
+		previousY[count] = entity.getPreviousY();
+		x[count] = entity.getLocationX();
+		y[count] = entity.getLocationY();
+		sprites[count] = entity.sprite;
+		count++;
+	}
+
+	/**
+	 * Set the message to draw over the entities
+	 *
+	 * @param message The message to draw, null if there is none
+	 */
+	void setMessage(Sprite message) {
+		this.message = message;
+	}
+
+	/**
+	 * Set the time the snapshot was taken
+	 *
+	 * @param time The value of System.nanoTime() when the snapshot was taken
+	 */
+	void setTime(long time) {
+		this.time = time;
+	}
+
+	/**
+	 * Get the time the snapshot was taken
+	 *
+	 * @return The value of System.nanoTime() when the snapshot was taken
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * Set the time the oldest input acted on and not yet seen by the
+	 * renderer was received
+	 *
+	 * @param inputTime The value of System.nanoTime() when the input was received, 0 if there is none
+	 */
+	void setInputTime(long inputTime) {
+		this.inputTime = inputTime;
+	}
+
+	/**
+	 * Get the time the oldest input acted on and not yet seen by the
+	 * renderer was received. The same time is kept in each snapshot
+	 * until the renderer has seen it.
+	 *
+	 * @return The value of System.nanoTime() when the input was received, 0 if there is none
+	 */
+	public long getInputTime() {
+		return inputTime;
+	}
+
+	/**
+	 * Get the number of entities in the snapshot
+	 *
+	 * @return The number of entities
+	 */
+	public int getCount() {
+		return count;
+	}
+
+	/**
+	 * Draw the entities part way between their previous and current
+	 * location, followed by the message if there is one
+	 *
+	 * @param alpha How far between the previous and current location to draw, from 0 to 1
+	 */
+	public void draw(double alpha) {
+		for (int i=0;i<count;i++) {
+			int drawX = (int) (previousX[i] + (x[i] - previousX[i]) * alpha);
+			int drawY = (int) (previousY[i] + (y[i] - previousY[i]) * alpha);
+			sprites[i].draw(drawX,drawY);
+		}
+
+		if (message != null) {
+			message.draw(325,250);
+		}
+	}
+}
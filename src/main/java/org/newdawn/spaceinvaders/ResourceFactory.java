@@ -1,5 +1,7 @@
 package org.newdawn.spaceinvaders;
 
+import org.newdawn.spaceinvaders.headless.HeadlessGameWindow;
+import org.newdawn.spaceinvaders.headless.HeadlessSpriteStore;
 import org.newdawn.spaceinvaders.java2d.Java2DGameWindow;
 import org.newdawn.spaceinvaders.java2d.Java2DSpriteStore;
 import org.newdawn.spaceinvaders.jogl.JoglGLWindow;
@@ -14,19 +16,41 @@ import org.newdawn.spaceinvaders.lwjgl.LWJGLSprite;
  * work within the GameWindow supplied from this class. For instance, a Sprite retrieved
  * as a resource will draw happily in the GameWindow supplied from this factory
  *
+ * Normally there is a single factory shared by the whole process. When several
+ * games run side by side in one process each game session gets a factory of its
+ * own, which is made current on the session's thread with setCurrent(). From then
+ * on get() returns the session's factory on that thread, and any threads it starts.
+ *
  * @author Kevin Glass
  */
 public class ResourceFactory {
-	/** The single instance of this class to ever exist <singleton> */
+	/** The instance shared by threads that haven't been given a factory of their own */
 	private static final ResourceFactory single = new ResourceFactory();
+	/** The factory of the game session running on each thread, null for the shared instance */
+	private static final InheritableThreadLocal<ResourceFactory> current = new InheritableThreadLocal<>();
 
 	/**
-	 * Retrieve the single instance of this class
+	 * Retrieve the factory of the game running on the calling thread
 	 *
-	 * @return The single instance of this class
+	 * @return The factory made current on this thread, or the shared instance if there is none
 	 */
 	public static ResourceFactory get() {
-		return single;
+		ResourceFactory factory = current.get();
+		return (factory != null) ? factory : single;
+	}
+
+	/**
+	 * Make a factory current on the calling thread, and on any threads it
+	 * starts from now on
+	 *
+	 * @param factory The factory to make current, or null to go back to the shared instance
+	 */
+	public static void setCurrent(ResourceFactory factory) {
+		if (factory == null) {
+			current.remove();
+		} else {
+			current.set(factory);
+		}
 	}
 
 	/** A value to indicate that we should use Java 2D to render our game */
@@ -37,18 +61,23 @@ public class ResourceFactory {
 	public static final int OPENGL_LWJGL = 3;
 
 	public static final int OPENGL_JOGL_GLWINDOW = 4;
+	/** A value to indicate that we should run the game without any display */
+	public static final int HEADLESS = 5;
 
 	/** The type of rendering that we are currently using */
 	private int renderingType = JAVA2D;
 	/** The window the game should use to render */
 	private GameWindow window;
+	/** The registry holding every sprite that has been created */
+	private SpriteRegistry sprites = new SpriteRegistry(this);
+	/** The store of Java 2D sprites drawn to this factory's window, null until needed */
+	private Java2DSpriteStore java2DSprites;
 
 	/**
-	 * The default contructor has been made private to prevent construction of
-	 * this class anywhere externally. This is used to enforce the singleton
-	 * pattern that this class attempts to follow
+	 * Create a new factory with a window and sprites of its own, for a
+	 * game session that runs alongside others in the same process
 	 */
-	private ResourceFactory() {
+	public ResourceFactory() {
 	}
 
 	/**
@@ -61,7 +90,8 @@ public class ResourceFactory {
 	public void setRenderingType(int renderingType) {
 		// If the rendering type is unrecognised tell the caller
 		if ((renderingType != JAVA2D) && (renderingType != OPENGL_JOGL) 
-				&& (renderingType != OPENGL_LWJGL) && renderingType != OPENGL_JOGL_GLWINDOW) {
+				&& (renderingType != OPENGL_LWJGL) && renderingType != OPENGL_JOGL_GLWINDOW
+				&& (renderingType != HEADLESS)) {
 			// Note, we could create our own exception to be thrown here but it
 			// seems a little bit over the top for a simple message. In general
 			// RuntimeException should be subclassed and thrown, not thrown directly.
@@ -70,7 +100,7 @@ public class ResourceFactory {
 
 		// If the window has already been created then we have already created resources in
 		// the current rendering method, we are not allowed to change rendering types
-		if (window != null) {
+		if ((window != null) && (renderingType != this.renderingType)) {
 			throw new RuntimeException("Attempt to change rendering method at game runtime");
 		}
 
@@ -103,12 +133,39 @@ public class ResourceFactory {
 					window = new JoglGLWindow();
 					break;
 				}
+				case HEADLESS: {
+					window = new HeadlessGameWindow();
+					break;
+				}
 			}
 		}
 
 		return window;
 	}
 
+	/**
+	 * Get the name of the rendering method in use, as shown in the
+	 * frame statistics
+	 *
+	 * @return The name of the rendering method, e.g. "java2d"
+	 */
+	public String getRenderingName() {
+		switch (renderingType) {
+			case JAVA2D:
+				return "java2d";
+			case OPENGL_JOGL:
+				return "jogl";
+			case OPENGL_LWJGL:
+				return "lwjgl";
+			case OPENGL_JOGL_GLWINDOW:
+				return "jogl-glwindow";
+			case HEADLESS:
+				return "headless";
+		}
+
+		throw new RuntimeException("Unknown rendering type: " + renderingType);
+	}
+
 	/**
 	 * Create or get a sprite which displays the image that is pointed
 	 * to in the classpath by "ref"
@@ -118,13 +175,62 @@ public class ResourceFactory {
 	 * @return A sprite that can be drawn onto the current graphics context.
 	 */
 	public Sprite getSprite(String ref) {
+		return sprites.getSprite(sprites.getId(ref));
+	}
+
+	/**
+	 * Get a sprite by its ID. This is just an array lookup so is
+	 * cheap enough to use wherever entities are created.
+	 *
+	 * @param id
+	 *            The ID of the sprite as given by getSpriteId()
+	 * @return A sprite that can be drawn onto the current graphics context.
+	 */
+	public Sprite getSprite(int id) {
+		return sprites.getSprite(id);
+	}
+
+	/**
+	 * Get the ID of the sprite which displays the image that is pointed
+	 * to in the classpath by "ref", creating the sprite if needed
+	 *
+	 * @param ref
+	 *            A reference to the image to load
+	 * @return The ID of the sprite
+	 */
+	public int getSpriteId(String ref) {
+		return sprites.getId(ref);
+	}
+
+	/**
+	 * Create all the sprites listed in the sprite manifest. This has
+	 * to be done once the game window is able to create sprites, i.e.
+	 * when the game is being initialised.
+	 */
+	public void preloadSprites() {
+		sprites.preload();
+	}
+
+	/**
+	 * Create a new sprite which displays the image that is pointed
+	 * to in the classpath by "ref". The sprite registry makes sure
+	 * this happens once per image.
+	 * 
+	 * @param ref
+	 *            A reference to the image to load
+	 * @return A sprite that can be drawn onto the current graphics context.
+	 */
+	Sprite createSprite(String ref) {
 		if (window == null) {
 			throw new RuntimeException("Attempt to retrieve sprite before game window was created");
 		}
 
 		switch (renderingType) {
 			case JAVA2D: {
-				return Java2DSpriteStore.get().getSprite((Java2DGameWindow) window, ref);
+				if (java2DSprites == null) {
+					java2DSprites = new Java2DSpriteStore();
+				}
+				return java2DSprites.getSprite((Java2DGameWindow) window, ref);
 			}
 			case OPENGL_JOGL: {
 				return new JoglSprite((JoglGameWindow) window, ref);
@@ -135,6 +241,9 @@ public class ResourceFactory {
 			case OPENGL_LWJGL: {
 				return new LWJGLSprite((LWJGLGameWindow) window, ref);
 			}
+			case HEADLESS: {
+				return HeadlessSpriteStore.get().getSprite(ref);
+			}
 		}
 
 		throw new RuntimeException("Unknown rendering type: " + renderingType);
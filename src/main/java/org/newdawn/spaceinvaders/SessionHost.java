@@ -0,0 +1,232 @@
+package org.newdawn.spaceinvaders;
+
+import java.awt.event.KeyEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.newdawn.spaceinvaders.headless.HeadlessGameWindow;
+import org.newdawn.spaceinvaders.metrics.FrameStats;
+
+/**
+ * Runs many independent headless games side by side in one process, for
+ * bots and load tests. Each session gets a resource factory of its own, and
+ * so its own window, keys and sprite IDs, while the sprites themselves are
+ * shared. Each session publishes its frame statistics under its own name
+ * while it runs.
+ *
+ * Headless games never wait for the clock, each frame simulates one logic
+ * step straight away, so a session is only as slow as its game logic. Where
+ * the JVM has virtual threads each session runs on a virtual thread of its
+ * own. On older JVMs sessions run on a small pool of carrier threads, and at
+ * most that many sessions run at once.
+ */
+public class SessionHost {
+	/** The executor running the sessions */
+	private ExecutorService executor;
+	/** True if the sessions run on virtual threads */
+	private boolean virtual;
+	/** The number of sessions currently running */
+	private AtomicInteger running = new AtomicInteger();
+	/** The number of sessions that have finished */
+	private AtomicInteger finished = new AtomicInteger();
+
+	/**
+	 * Create a new host
+	 *
+	 * @param carriers The number of threads to run sessions on if virtual threads aren't available
+	 */
+	public SessionHost(int carriers) {
+		executor = createVirtualExecutor();
+		virtual = (executor != null);
+
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(carriers,runnable -> {
+				Thread thread = new Thread(runnable,"Game session");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+
+	/**
+	 * Create an executor that runs each task on a virtual thread. This is
+	 * looked up by reflection so the game still runs on JVMs without them.
+	 *
+	 * @return The executor, or null if virtual threads aren't available
+	 */
+	private static ExecutorService createVirtualExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Check if sessions are run on virtual threads
+	 *
+	 * @return True if each session runs on a virtual thread, false if they share a pool of carrier threads
+	 */
+	public boolean isVirtual() {
+		return virtual;
+	}
+
+	/**
+	 * Get the number of sessions currently running
+	 *
+	 * @return The number of running sessions
+	 */
+	public int getRunningCount() {
+		return running.get();
+	}
+
+	/**
+	 * Get the number of sessions that have finished
+	 *
+	 * @return The number of finished sessions
+	 */
+	public int getFinishedCount() {
+		return finished.get();
+	}
+
+	/**
+	 * Start a new session
+	 *
+	 * @param name The name of the session, its frame statistics are published under this name
+	 * @param frames The number of frames to run the session for
+	 * @param driver The driver pressing keys before each frame, null to leave the game waiting for a key
+	 * @return The result of the session, the frame statistics of its game once it has finished.
+	 * If the session failed, e.g. because a sprite couldn't be loaded, getting the result
+	 * throws an ExecutionException holding the cause
+	 */
+	public Future<FrameStats> start(String name,long frames,Consumer<HeadlessGameWindow> driver) {
+		return executor.submit(() -> runSession(name,frames,driver));
+	}
+
+	/**
+	 * Run a session on the calling thread
+	 *
+	 * @param name The name of the session
+	 * @param frames The number of frames to run the session for
+	 * @param driver The driver pressing keys before each frame, may be null
+	 * @return The frame statistics of the session's game
+	 */
+	private FrameStats runSession(String name,long frames,Consumer<HeadlessGameWindow> driver) {
+		ResourceFactory factory = new ResourceFactory();
+		ResourceFactory.setCurrent(factory);
+		running.incrementAndGet();
+
+		try {
+			factory.setRenderingType(ResourceFactory.HEADLESS);
+			HeadlessGameWindow window = (HeadlessGameWindow) factory.getGameWindow();
+			window.setMaxFrames(frames);
+			window.setInputDriver(driver);
+
+			// the game runs until its frames are up
+			Game game = new Game(ResourceFactory.HEADLESS,name,true);
+			game.getFrameStats().unregister();
+
+			return game.getFrameStats();
+		} finally {
+			running.decrementAndGet();
+			finished.incrementAndGet();
+			ResourceFactory.setCurrent(null);
+		}
+	}
+
+	/**
+	 * Stop accepting sessions, sessions already started run to the end
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	/**
+	 * A simple bot that sweeps the ship from side to side while firing
+	 */
+	private static class SweepingBot implements Consumer<HeadlessGameWindow> {
+		/** The number of frames seen so far, offset so that bots don't move in step */
+		private long frame;
+
+		/**
+		 * Create a new bot
+		 *
+		 * @param offset The number of frames to start the sweep at
+		 */
+		SweepingBot(long offset) {
+			frame = offset;
+		}
+
+		/**
+		 * Press the keys for the next frame
+		 *
+		 * @param window The window to press the keys in
+		 */
+		public void accept(HeadlessGameWindow window) {
+			boolean left = (frame / 60) % 2 == 0;
+
+			window.setKeyPressed(KeyEvent.VK_LEFT,left);
+			window.setKeyPressed(KeyEvent.VK_RIGHT,!left);
+			// let go of fire now and then, which is needed to start a new game
+			window.setKeyPressed(KeyEvent.VK_SPACE,(frame % 4) != 0);
+			frame++;
+		}
+	}
+
+	/**
+	 * Run a number of sessions played by bots and report how they did
+	 *
+	 * @param argv The arguments passed on the command line, the number of sessions and frames per session
+	 * @throws InterruptedException Indicates the wait for the sessions was interrupted
+	 */
+	public static void main(String argv[]) throws InterruptedException {
+		int sessions = (argv.length > 0) ? Integer.parseInt(argv[0]) : 100;
+		long frames = (argv.length > 1) ? Long.parseLong(argv[1]) : 600;
+
+		SessionHost host = new SessionHost(64);
+		List<Future<FrameStats>> results = new ArrayList<>(sessions);
+
+		long start = System.nanoTime();
+		for (int i=0;i<sessions;i++) {
+			results.add(host.start("session-"+i,frames,new SweepingBot(i * 7)));
+		}
+
+		long totalFrames = 0;
+		long totalTicks = 0;
+		long worstP99 = 0;
+		int failed = 0;
+		for (int i=0;i<results.size();i++) {
+			FrameStats stats;
+			try {
+				stats = results.get(i).get();
+			} catch (ExecutionException e) {
+				// one session failing leaves the others running
+				System.err.println("session-"+i+" failed: "+e.getCause());
+				failed++;
+				continue;
+			}
+
+			totalFrames += stats.getFrameCount();
+			totalTicks += stats.getTickCount();
+			worstP99 = Math.max(worstP99,stats.getPhase(FrameStats.MOVE).getP99());
+		}
+		long time = System.nanoTime() - start;
+		host.shutdown();
+
+		System.out.println("Sessions: "+sessions+(host.isVirtual() ? " (virtual threads)" : " (carrier pool)"));
+		System.out.println("Time:     "+(time / 1000000)+" ms");
+		System.out.println("Frames:   "+totalFrames+" ("+((totalFrames * 1000000000L) / Math.max(1,time))+" frames/sec)");
+		System.out.println("Steps:    "+totalTicks);
+		System.out.println("Worst move p99: "+worstP99+" ns");
+		if (failed > 0) {
+			System.out.println("Failed:   "+failed);
+			System.exit(1);
+		}
+	}
+}
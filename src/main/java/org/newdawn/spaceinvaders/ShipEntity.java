@@ -18,30 +18,49 @@ public class ShipEntity extends Entity {
 	 * @param y The initial y location of the player's ship
 	 */
 	public ShipEntity(Game game,String ref,int x,int y) {
-		super(ref,x,y);
+		this(game,ResourceFactory.get().getSpriteId(ref),x,y);
+	}
+	
+	/**
+	 * Create a new entity to represent the players ship
+	 *  
+	 * @param game The game in which the ship is being created
+	 * @param spriteId The ID of the sprite to show for the ship
+	 * @param x The initial x location of the player's ship
+	 * @param y The initial y location of the player's ship
+	 */
+	public ShipEntity(Game game,int spriteId,int x,int y) {
+		super(spriteId,x,y);
 		
 		this.game = game;
 	}
 	
 	/**
-	 * Request that the ship move itself based on an elapsed ammount of
-	 * time
+	 * Notification that the ship has been moved based on an elapsed
+	 * ammount of time. The ship is moved along with everything else, so
+	 * if it had already reached the side of the screen it is put back
+	 * where it was before this step.
 	 * 
 	 * @param delta The time that has elapsed since last move (ms)
 	 */
-	public void move(long delta) {
+	protected void moved(long delta) {
+		double x = getPreviousX();
+		double dx = getHorizontalMovement();
+		
 		// if we're moving left and have reached the left hand side
 		// of the screen, don't move
 		if ((dx < 0) && (x < 10)) {
+			setLocation(x,getPreviousY());
 			return;
 		}
 		// if we're moving right and have reached the right hand side
 		// of the screen, don't move
 		if ((dx > 0) && (x > 750)) {
+			setLocation(x,getPreviousY());
 			return;
 		}
 		
-		super.move(delta);
+		super.moved(delta);
 	}
 	
 	/**
@@ -22,24 +22,45 @@ public class ShotEntity extends Entity {
 	 * @param y The initial y location of the shot
 	 */
 	public ShotEntity(Game game,String sprite,int x,int y) {
-		super(sprite,x,y);
+		this(game,ResourceFactory.get().getSpriteId(sprite),x,y);
+	}
+	
+	/**
+	 * Create a new shot from the player
+	 * 
+	 * @param game The game in which the shot has been created
+	 * @param spriteId The ID of the sprite representing this shot
+	 * @param x The initial x location of the shot
+	 * @param y The initial y location of the shot
+	 */
+	public ShotEntity(Game game,int spriteId,int x,int y) {
+		super(spriteId,x,y);
 		
 		this.game = game;
 		
-		dy = moveSpeed;
+		setVerticalMovement(moveSpeed);
+	}
+
+	/**
+	 * Notification that this shot has been taken from the pool to be
+	 * fired again, it hasn't hit anything yet.
+	 */
+	protected void acquired() {
+		used = false;
+		setVerticalMovement(moveSpeed);
 	}
 
 	/**
-	 * Request that this shot moved based on time elapsed
+	 * Notification that this shot has moved based on time elapsed
 	 * 
 	 * @param delta The time that has elapsed since last move
 	 */
-	public void move(long delta) {
+	protected void moved(long delta) {
 		// proceed with normal move
-		super.move(delta);
+		super.moved(delta);
 		
 		// if we shot off the screen, remove ourselfs
-		if (y < -100) {
+		if (getLocationY() < -100) {
 			game.removeEntity(this);
 		}
 	}
@@ -57,8 +78,9 @@ public class ShotEntity extends Entity {
 			return;
 		}
 		
-		// if we've hit an alien, kill it!
-		if (other instanceof AlienEntity) {
+		// if we've hit an alien, kill it! Unless another shot
+		// already got there this loop
+		if ((other instanceof AlienEntity) && (!game.isRemoved(other))) {
 			// remove the affected entities
 			game.removeEntity(this);
 			game.removeEntity(other);
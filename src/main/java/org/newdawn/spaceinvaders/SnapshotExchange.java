@@ -0,0 +1,68 @@
+package org.newdawn.spaceinvaders;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands snapshots of the game from the logic thread over to the rendering
+ * thread without either ever waiting on the other. Three snapshots are
+ * shared between the two: the logic thread fills the back snapshot, the
+ * renderer draws the front snapshot and the one in the middle is the most
+ * recently published. Publishing swaps the back snapshot with the middle
+ * one, taking the latest swaps the middle one with the front, each with a
+ * single atomic exchange.
+ *
+ * The renderer only takes a new snapshot when one has been published
+ * since it last looked, otherwise it keeps drawing the one it has. The
+ * logic thread can publish any number of times in between, the renderer
+ * always sees the most recent.
+ *
+ * There must only ever be one thread publishing and one thread taking.
+ */
+public class SnapshotExchange {
+	/** The bit set in the middle index when it holds a snapshot the renderer hasn't taken */
+	private static final int FRESH = 4;
+	/** The mask of the index of a snapshot */
+	private static final int INDEX = 3;
+
+	/** The three snapshots being exchanged */
+	private RenderSnapshot[] snapshots = {new RenderSnapshot(),new RenderSnapshot(),new RenderSnapshot()};
+	/** The index of the snapshot being filled, only touched by the logic thread */
+	private int back = 0;
+	/** The index of the most recently published snapshot, plus the FRESH bit */
+	private AtomicInteger middle = new AtomicInteger(1);
+	/** The index of the snapshot being drawn, only touched by the rendering thread */
+	private int front = 2;
+
+	/**
+	 * Get the snapshot to fill in with the next state of the game. Only
+	 * to be called from the logic thread.
+	 *
+	 * @return The snapshot to fill in
+	 */
+	public RenderSnapshot getBackSnapshot() {
+		return snapshots[back];
+	}
+
+	/**
+	 * Publish the back snapshot as the latest state of the game. Only to
+	 * be called from the logic thread, a different snapshot is handed out
+	 * by getBackSnapshot() afterwards.
+	 */
+	public void publish() {
+		back = middle.getAndSet(back | FRESH) & INDEX;
+	}
+
+	/**
+	 * Get the most recently published snapshot. Only to be called from the
+	 * rendering thread, the snapshot is the renderer's until the next call.
+	 *
+	 * @return The latest snapshot of the game
+	 */
+	public RenderSnapshot acquire() {
+		if ((middle.get() & FRESH) != 0) {
+			front = middle.getAndSet(front) & INDEX;
+		}
+
+		return snapshots[front];
+	}
+}
@@ -1,5 +1,7 @@
 package org.newdawn.spaceinvaders;
 
+import org.newdawn.spaceinvaders.util.CollisionMask;
+
 /**
  * A sprite to be displayed on the screen. Note that a sprite
  * contains no state information, i.e. its just the image and 
@@ -32,4 +34,12 @@ public interface Sprite {
 	 * @param y The y location at which to draw the sprite
 	 */
 	public void draw(int x,int y);
+
+	/**
+	 * Get the mask of the opaque pixels of this sprite, used to check
+	 * collisions down to the pixel
+	 *
+	 * @return The collision mask of this sprite
+	 */
+	public CollisionMask getCollisionMask();
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+package org.newdawn.spaceinvaders;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A registry of the sprites in use. Each sprite is created once and given
+ * a small integer ID, entities keep hold of the ID and the sprite is found
+ * again by indexing an array. This means that creating entities on busy
+ * paths (firing, spawning aliens) never creates a sprite.
+ *
+ * The sprites listed in the manifest are registered up front, in the order
+ * they are listed. Any other sprite is registered when its first asked for.
+ */
+public class SpriteRegistry {
+	/** The manifest listing the sprites to register up front */
+	public static final String MANIFEST = "sprites/sprites.lst";
+
+	/** The factory used to create the sprites */
+	private ResourceFactory factory;
+	/** The ID of each registered sprite, keyed by its reference */
+	private HashMap<String,Integer> ids = new HashMap<>();
+	/** The registered sprites, indexed by ID */
+	private Sprite[] sprites = new Sprite[16];
+	/** The number of registered sprites */
+	private int count;
+
+	/**
+	 * Create a new registry
+	 *
+	 * @param factory The factory used to create the sprites
+	 */
+	public SpriteRegistry(ResourceFactory factory) {
+		this.factory = factory;
+	}
+
+	/**
+	 * Register all the sprites listed in the manifest
+	 */
+	public void preload() {
+		InputStream in = SpriteRegistry.class.getClassLoader().getResourceAsStream(MANIFEST);
+
+		if (in == null) {
+			throw new RuntimeException("Can't find sprite manifest: "+MANIFEST);
+		}
+
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(in,StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if ((line.length() > 0) && (!line.startsWith("#"))) {
+					getId(line);
+				}
+			}
+		} catch (IOException e) {
+			throw new RuntimeException("Failed to read sprite manifest: "+MANIFEST,e);
+		}
+	}
+
+	/**
+	 * Get the ID of a sprite, registering it if this is the first
+	 * time its been asked for
+	 *
+	 * @param ref The reference to the image of the sprite
+	 * @return The ID of the sprite
+	 */
+	public int getId(String ref) {
+		Integer id = ids.get(ref);
+
+		if (id != null) {
+			return id;
+		}
+
+		if (count == sprites.length) {
+			sprites = Arrays.copyOf(sprites,count * 2);
+		}
+
+		sprites[count] = factory.createSprite(ref);
+		ids.put(ref,count);
+
+		return count++;
+	}
+
+	/**
+	 * Get a registered sprite
+	 *
+	 * @param id The ID of the sprite
+	 * @return The sprite with the given ID
+	 */
+	public Sprite getSprite(int id) {
+		return sprites[id];
+	}
+
+	/**
+	 * Get the number of sprites that have been registered
+	 *
+	 * @return The number of registered sprites
+	 */
+	public int getSpriteCount() {
+		return count;
+	}
+}
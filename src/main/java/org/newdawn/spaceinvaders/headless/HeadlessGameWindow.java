@@ -0,0 +1,210 @@
+package org.newdawn.spaceinvaders.headless;
+
+import java.util.function.Consumer;
+
+import org.newdawn.spaceinvaders.GameWindow;
+import org.newdawn.spaceinvaders.GameWindowCallback;
+
+/**
+ * An implementation of GameWindow that doesn't display anything. The
+ * callback is asked to render frames in a tight loop, which allows the
+ * game to be simulated on machines without a screen. The game runs a
+ * single fixed logic step per headless frame and never waits for the
+ * clock, so games are simulated as fast as they can run. Since there is no
+ * keyboard, keys are pressed and released through this window, either
+ * from outside or by an input driver (e.g. a bot) run before each frame.
+ */
+public class HeadlessGameWindow implements GameWindow {
+	/** The callback which should be notified of window events */
+	private GameWindowCallback callback;
+	/** True if the game is currently "running", i.e. the game loop is looping */
+	private volatile boolean gameRunning;
+	/** The number of frames to render before returning from startRendering */
+	private long maxFrames = Long.MAX_VALUE;
+	/** The number of frames rendered so far */
+	private long frameCount;
+	/** The status of the keys */
+	private boolean[] keys = new boolean[1024];
+	/** The time the oldest key change since the last poll was made, 0 if there was none */
+	private long changeTime;
+	/** The time the oldest key change brought in by the last poll was made, 0 if there was none */
+	private long inputTime;
+	/** The width of the game display area */
+	private int width;
+	/** The height of the game display area */
+	private int height;
+	/** The last title set on this window */
+	private String currentTitle;
+	/** The driver pressing and releasing keys before each frame, null if there is none */
+	private Consumer<HeadlessGameWindow> inputDriver;
+
+	private String title = GameWindow.TITLE + getClass().getSimpleName();
+
+	/**
+	 * Set the title of this window. There is nothing to display it on
+	 * but it is kept so it can be queried.
+	 *
+	 * @param title The title to set on this window
+	 */
+	public void setTitle(String title) {
+		currentTitle = title;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	/**
+	 * Get the last title that has been set on this window
+	 *
+	 * @return The last title set or null if none has been set
+	 */
+	public String getCurrentTitle() {
+		return currentTitle;
+	}
+
+	/**
+	 * Set the resolution of the game display area.
+	 *
+	 * @param x The width of the game display area
+	 * @param y The height of the game display area
+	 */
+	public void setResolution(int x,int y) {
+		width = x;
+		height = y;
+	}
+
+	/**
+	 * Get the width of the game display area
+	 *
+	 * @return The width of the game display area
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Get the height of the game display area
+	 *
+	 * @return The height of the game display area
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Set the number of frames to render before startRendering returns.
+	 * By default frames are rendered until the rendering is stopped.
+	 *
+	 * @param maxFrames The number of frames to render
+	 */
+	public void setMaxFrames(long maxFrames) {
+		this.maxFrames = maxFrames;
+	}
+
+	/**
+	 * Set the driver that presses and releases keys. The driver is called
+	 * before each frame is rendered, on the thread running the frames.
+	 *
+	 * @param inputDriver The driver to call before each frame, null for none
+	 */
+	public void setInputDriver(Consumer<HeadlessGameWindow> inputDriver) {
+		this.inputDriver = inputDriver;
+	}
+
+	/**
+	 * Get the number of frames rendered so far
+	 *
+	 * @return The number of frames rendered
+	 */
+	public long getFrameCount() {
+		return frameCount;
+	}
+
+	/**
+	 * Start the rendering process. This method will not return until
+	 * rendering has been stopped or the frame limit has been reached.
+	 */
+	public void startRendering() {
+		gameRunning = true;
+		frameCount = 0;
+
+		if (callback != null) {
+			callback.initialise();
+		}
+
+		while (gameRunning && (frameCount < maxFrames)) {
+			if (inputDriver != null) {
+				inputDriver.accept(this);
+			}
+			if (callback != null) {
+				callback.frameRendering();
+				callback.frameShown();
+			}
+			frameCount++;
+		}
+
+		gameRunning = false;
+	}
+
+	/**
+	 * Stop the rendering loop at the end of the current frame
+	 */
+	public void stopRendering() {
+		gameRunning = false;
+	}
+
+	/**
+	 * Register a callback that will be notified of game window
+	 * events.
+	 *
+	 * @param callback The callback that should be notified of game
+	 * window events.
+	 */
+	public void setGameWindowCallback(GameWindowCallback callback) {
+		this.callback = callback;
+	}
+
+	/**
+	 * Bring the status of the keys up to date with the input received
+	 * since the last poll. Keys are set directly on the window, so only
+	 * the time of the input is brought up to date.
+	 */
+	public void pollInput() {
+		inputTime = changeTime;
+		changeTime = 0;
+	}
+
+	/**
+	 * Get the time the oldest key change brought in by the last call to
+	 * pollInput() was made
+	 *
+	 * @return The value of System.nanoTime() when the key changed, 0 if the poll found no changes
+	 */
+	public long getInputTime() {
+		return inputTime;
+	}
+
+	/**
+	 * Check if a particular key is current pressed.
+	 *
+	 * @param keyCode The code associated with the key to check
+	 * @return True if the specified key is pressed
+	 */
+	public boolean isKeyPressed(int keyCode) {
+		return keys[keyCode];
+	}
+
+	/**
+	 * Press or release a key
+	 *
+	 * @param keyCode The code associated with the key (defined in KeyEvent)
+	 * @param pressed True if the key should be pressed
+	 */
+	public void setKeyPressed(int keyCode,boolean pressed) {
+		if ((changeTime == 0) && (keys[keyCode] != pressed)) {
+			changeTime = System.nanoTime();
+		}
+		keys[keyCode] = pressed;
+	}
+}
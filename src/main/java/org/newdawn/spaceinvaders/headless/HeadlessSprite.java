@@ -0,0 +1,108 @@
+package org.newdawn.spaceinvaders.headless;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.imageio.ImageIO;
+
+import org.newdawn.spaceinvaders.Sprite;
+import org.newdawn.spaceinvaders.util.CollisionMask;
+
+/**
+ * A sprite that is never drawn. It only knows the size of the image it
+ * stands in for so that collisions are resolved exactly as they would
+ * be with a real display.
+ *
+ * The image itself is only decoded if its collision mask is asked for,
+ * which only happens when pixel perfect collisions are switched on.
+ */
+public class HeadlessSprite implements Sprite {
+	/** The width in pixels of this sprite */
+	private int width;
+	/** The height in pixels of this sprite */
+	private int height;
+	/** The reference to the image this sprite stands in for, null if there is no image */
+	private String ref;
+	/** The collision mask of this sprite, null until it is first needed */
+	private CollisionMask mask;
+
+	/**
+	 * Create a new sprite
+	 *
+	 * @param width The width in pixels of this sprite
+	 * @param height The height in pixels of this sprite
+	 */
+	public HeadlessSprite(int width,int height) {
+		this(null,width,height);
+	}
+
+	/**
+	 * Create a new sprite standing in for an image
+	 *
+	 * @param ref The reference to the image, used to build the collision mask
+	 * @param width The width in pixels of this sprite
+	 * @param height The height in pixels of this sprite
+	 */
+	public HeadlessSprite(String ref,int width,int height) {
+		this.ref = ref;
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * Get the width of the drawn sprite
+	 *
+	 * @return The width in pixels of this sprite
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Get the height of the drawn sprite
+	 *
+	 * @return The height in pixels of this sprite
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Nothing is drawn without a display
+	 *
+	 * @param x The x location at which to draw the sprite
+	 * @param y The y location at which to draw the sprite
+	 */
+	public void draw(int x,int y) {
+	}
+
+	/**
+	 * Get the mask of the opaque pixels of this sprite, decoding the
+	 * image the first time it's asked for. Sprites without an image,
+	 * or whose image can't be read, are solid.
+	 *
+	 * @return The collision mask of this sprite
+	 */
+	public synchronized CollisionMask getCollisionMask() {
+		if (mask != null) {
+			return mask;
+		}
+
+		if (ref != null) {
+			try (InputStream in = getClass().getClassLoader().getResourceAsStream(ref)) {
+				BufferedImage image = (in == null) ? null : ImageIO.read(in);
+				if (image != null) {
+					mask = CollisionMask.fromImage(image);
+				}
+			} catch (IOException e) {
+				System.err.println("Unable to read collision mask: "+ref);
+			}
+		}
+		if (mask == null) {
+			mask = CollisionMask.solid(width,height);
+		}
+
+		return mask;
+	}
+}
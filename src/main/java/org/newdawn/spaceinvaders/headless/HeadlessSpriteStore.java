@@ -0,0 +1,63 @@
+package org.newdawn.spaceinvaders.headless;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.newdawn.spaceinvaders.Sprite;
+import org.newdawn.spaceinvaders.util.GifHeader;
+
+/**
+ * A resource manager for sprites when running without a display. The
+ * images are never decoded, only the size is read from the GIF header.
+ * <p>
+ * Headless sprites don't belong to a window and never change, so one
+ * store is shared by every game session in the process. It is safe to
+ * use from several threads at once.
+ * <p>
+ * [singleton]
+ */
+public class HeadlessSpriteStore {
+	/** The single instance of this class */
+	private static HeadlessSpriteStore single = new HeadlessSpriteStore();
+
+	/**
+	 * Get the single instance of this class
+	 *
+	 * @return The single instance of this class
+	 */
+	public static HeadlessSpriteStore get() {
+		return single;
+	}
+
+	/** The cached sprite map, from reference to sprite instance */
+	private ConcurrentHashMap<String,Sprite> sprites = new ConcurrentHashMap<>();
+
+	/**
+	 * Retrieve a sprite from the store. Unlike the Java 2D store a failure
+	 * to load doesn't exit, since the store may be serving many sessions
+	 * of which only the one asking should fail.
+	 *
+	 * @param ref The reference to the image to use for the sprite
+	 * @return A sprite instance with the size of the referenced image
+	 * @throws IllegalStateException Indicates the image couldn't be read
+	 */
+	public Sprite getSprite(String ref) {
+		Sprite sprite = sprites.get(ref);
+
+		if (sprite != null) {
+			return sprite;
+		}
+
+		try {
+			GifHeader header = GifHeader.read(ref);
+			sprite = new HeadlessSprite(ref,header.getWidth(),header.getHeight());
+		} catch (IOException e) {
+			throw new IllegalStateException("Failed to load: "+ref,e);
+		}
+
+		// if another session got there first use its sprite instead
+		Sprite existing = sprites.putIfAbsent(ref,sprite);
+
+		return (existing != null) ? existing : sprite;
+	}
+}
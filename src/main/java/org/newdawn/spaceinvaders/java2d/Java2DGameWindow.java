@@ -1,10 +1,14 @@
 package org.newdawn.spaceinvaders.java2d;
 
+import java.awt.BufferCapabilities;
 import java.awt.Canvas;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
 import java.awt.image.BufferStrategy;
+import java.awt.image.VolatileImage;
 
 import javax.swing.JFrame;
 import javax.swing.JPanel;
@@ -17,6 +21,12 @@ import org.newdawn.spaceinvaders.util.Keyboard;
  * An implementation of GameWindow which uses Java 2D rendering to 
  * produce the scene. In addition its responsible for monitoring 
  * the keyboard using AWT.
+ * <p>
+ * The number of buffers in the buffer strategy is taken from the
+ * <code>spaceinvaders.buffers</code> property, 2 by default and 3 for
+ * triple buffering. When the window is shown it reports whether the
+ * buffers and images are accelerated, since Java 2D quietly falls back
+ * to rendering in software when the pipeline can't be accelerated.
  * 
  * @author Kevin Glass
  */
@@ -25,6 +35,10 @@ public class Java2DGameWindow extends Canvas implements GameWindow {
 	 * 
 	 */
     private static final long serialVersionUID = 1L;
+	/** The number of buffers to render through, 2 for double buffering and 3 for triple, at least 1 */
+	private static final int BUFFERS = Math.max(1,Integer.getInteger("spaceinvaders.buffers",2));
+	/** True if the window should report how its rendering is accelerated when it opens */
+	private static final boolean VERBOSE = Boolean.getBoolean("spaceinvaders.verbose");
 	/** The stragey that allows us to use accelerate page flipping */
 	private BufferStrategy strategy;
 	/** True if the game is currently "running", i.e. the game loop is looping */
@@ -38,6 +52,8 @@ public class Java2DGameWindow extends Canvas implements GameWindow {
 	private int height;
 	/** The callback which should be notified of events caused by this window */
 	private GameWindowCallback callback;
+	/** The keyboard tracking the keys pressed in this window */
+	private Keyboard keyboard = new Keyboard();
 	/** The current accelerated graphics context */
 	private Graphics2D g;
 	
@@ -85,7 +101,7 @@ public class Java2DGameWindow extends Canvas implements GameWindow {
 		panel.setPreferredSize(new Dimension(800,600));
 		panel.setLayout(null);
 	
-		Keyboard.init(this);
+		keyboard.init(this);
 		
 		// setup our canvas size and put it into the content of the frame
 		setBounds(0,0,width,height);
@@ -105,8 +121,11 @@ public class Java2DGameWindow extends Canvas implements GameWindow {
 		
 		// create the buffering strategy which will allow AWT
 		// to manage our accelerated graphics
-		createBufferStrategy(2);
+		createBufferStrategy(BUFFERS);
 		strategy = getBufferStrategy();
+		if (VERBOSE) {
+			reportAcceleration();
+		}
 		
 		// if we have a callback registered then notify 
 		// it that initialisation is taking place
@@ -118,6 +137,35 @@ public class Java2DGameWindow extends Canvas implements GameWindow {
 		gameLoop();
 	}
 
+	/**
+	 * Report whether the buffer strategy and the images drawn to the
+	 * window are accelerated
+	 */
+	private void reportAcceleration() {
+		BufferCapabilities caps = strategy.getCapabilities();
+		GraphicsConfiguration gc = getGraphicsConfiguration();
+		boolean buffersAccelerated = caps.getBackBufferCapabilities().isAccelerated();
+		boolean imagesAccelerated = gc.getImageCapabilities().isAccelerated();
+		
+		System.out.println("Java2D buffers: "+BUFFERS+(caps.isPageFlipping() ? " (page flipping)" : " (blitting)")
+				+", back buffer "+(buffersAccelerated ? "accelerated" : "not accelerated"));
+		System.out.println("Java2D images: "+(imagesAccelerated ? "accelerated" : "not accelerated"));
+		
+		if (Java2DSpriteStore.VOLATILE_SPRITES) {
+			// the only way to know if volatile images end up in video
+			// memory is to make one and ask it
+			VolatileImage probe = gc.createCompatibleVolatileImage(1,1,Transparency.BITMASK);
+			imagesAccelerated = probe.getCapabilities().isAccelerated();
+			probe.flush();
+			
+			System.out.println("Java2D volatile sprites: "+(imagesAccelerated ? "accelerated" : "not accelerated"));
+		}
+		
+		if (!buffersAccelerated && !imagesAccelerated) {
+			System.err.println("Java2D is rendering in software, try -Dsun.java2d.opengl=true or, on Linux, -Dsun.java2d.xrender=true");
+		}
+	}
+
 	/**
 	 * Register the callback that should be notified of game
 	 * window events.
@@ -128,6 +176,24 @@ public class Java2DGameWindow extends Canvas implements GameWindow {
 		this.callback = callback;
 	}
 
+	/**
+	 * Bring the status of the keys up to date with the input received
+	 * since the last poll
+	 */
+	public void pollInput() {
+		keyboard.poll();
+	}
+	
+	/**
+	 * Get the time the oldest key event brought in by the last call to
+	 * pollInput() was received
+	 * 
+	 * @return The value of System.nanoTime() when the event was received, 0 if the poll found no new events
+	 */
+	public long getInputTime() {
+		return keyboard.getEventTime();
+	}
+	
 	/**
 	 * Check if a particular key is pressed
 	 * 
@@ -135,7 +201,7 @@ public class Java2DGameWindow extends Canvas implements GameWindow {
 	 * @return True if the specified key is pressed
 	 */
 	public boolean isKeyPressed(int keyCode) {
-		return Keyboard.isPressed(keyCode);
+		return keyboard.isPressed(keyCode);
 	}
 	
 	/**
@@ -168,7 +234,20 @@ public class Java2DGameWindow extends Canvas implements GameWindow {
 			// finally, we've completed drawing so clear up the graphics
 			// and flip the buffer over
 			g.dispose();
-			strategy.show();
+			
+			// a buffer lost while drawing or showing leaves a garbled
+			// frame. Drawing the frame also steps the game so it isn't
+			// drawn again, the next frame restores the buffers when it
+			// gets the graphics and then redraws the whole screen
+			boolean shown = false;
+			if (!strategy.contentsLost()) {
+				strategy.show();
+				shown = !strategy.contentsLost();
+			}
+			
+			if ((callback != null) && shown) {
+				callback.frameShown();
+			}
 		}
 	}
 
@@ -3,6 +3,7 @@ package org.newdawn.spaceinvaders.java2d;
 import java.awt.Image;
 
 import org.newdawn.spaceinvaders.Sprite;
+import org.newdawn.spaceinvaders.util.CollisionMask;
 
 /**
  * A sprite to be displayed on the screen. Note that a sprite
@@ -18,6 +19,8 @@ public class Java2DSprite implements Sprite {
 	private Image image;
 	/** The game window to which this sprite is going to be drawn */
 	private Java2DGameWindow window;
+	/** The mask of the opaque pixels of the image, null until needed if not known up front */
+	private CollisionMask mask;
 	
 	/**
 	 * Create a new sprite based on an image
@@ -26,8 +29,20 @@ public class Java2DSprite implements Sprite {
 	 * @param image The image that is this sprite
 	 */
 	public Java2DSprite(Java2DGameWindow window,Image image) {
+		this(window,image,null);
+	}
+	
+	/**
+	 * Create a new sprite based on an image
+	 * 
+	 * @param window The game window to which this sprite is going to be drawn
+	 * @param image The image that is this sprite
+	 * @param mask The mask of the opaque pixels of the image
+	 */
+	public Java2DSprite(Java2DGameWindow window,Image image,CollisionMask mask) {
 		this.image = image;
 		this.window = window;
+		this.mask = mask;
 	}
 	
 	/**
@@ -57,4 +72,18 @@ public class Java2DSprite implements Sprite {
 	public void draw(int x,int y) {
 		window.getDrawGraphics().drawImage(image,x,y,null);
 	}
+	
+	/**
+	 * Get the mask of the opaque pixels of this sprite. Sprites created
+	 * without a mask are treated as solid.
+	 * 
+	 * @return The collision mask of this sprite
+	 */
+	public CollisionMask getCollisionMask() {
+		if (mask == null) {
+			mask = CollisionMask.solid(getWidth(),getHeight());
+		}
+		
+		return mask;
+	}
 }
\ No newline at end of file
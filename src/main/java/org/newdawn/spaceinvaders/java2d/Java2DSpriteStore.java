@@ -12,6 +12,7 @@ import java.util.HashMap;
 import javax.imageio.ImageIO;
 
 import org.newdawn.spaceinvaders.Sprite;
+import org.newdawn.spaceinvaders.util.CollisionMask;
 
 /**
  * A resource manager for sprites in the game. Its often quite important
@@ -19,22 +20,18 @@ import org.newdawn.spaceinvaders.Sprite;
  * it makes sense to have a central resource loader that goes away, gets
  * your resources and caches them for future use.
  * <p>
- * [singleton]
+ * Sprites are drawn to the window they were created for, so each
+ * resource factory (and so each window) has a store of its own.
+ * <p>
+ * With the <code>spaceinvaders.volatile</code> property set the sprites
+ * are kept in VolatileImages (see Java2DVolatileSprite) rather than
+ * managed images that the JDK may or may not accelerate.
  * <p>
  * @author Kevin Glass
  */
 public class Java2DSpriteStore {
-	/** The single instance of this class */
-	private static Java2DSpriteStore single = new Java2DSpriteStore();
-	
-	/**
-	 * Get the single instance of this class 
-	 * 
-	 * @return The single instance of this class
-	 */
-	public static Java2DSpriteStore get() {
-		return single;
-	}
+	/** True if sprites should be kept in VolatileImages */
+	static final boolean VOLATILE_SPRITES = Boolean.getBoolean("spaceinvaders.volatile");
 	
 	/** The cached sprite map, from reference to sprite instance */
 	private HashMap<String,Sprite> sprites = new HashMap<>();
@@ -74,18 +71,48 @@ public class Java2DSpriteStore {
 			fail("Failed to load: "+ref);
 		}
 		
+		// the collision mask is taken from the source image which
+		// still has its alpha
+		CollisionMask mask = CollisionMask.fromImage(sourceImage);
+		Sprite sprite;
+		
+		if (VOLATILE_SPRITES) {
+			sprite = new Java2DVolatileSprite(window,sourceImage,mask);
+		} else {
+			sprite = new Java2DSprite(window,createManagedImage(sourceImage),mask);
+		}
+		
+		// add the sprite to the cache then return it
+		sprites.put(ref,sprite);
+		
+		return sprite;
+	}
+	
+	/**
+	 * Copy an image into a compatible image the JDK can accelerate
+	 * 
+	 * @param sourceImage The image loaded from the resource
+	 * @return The compatible copy of the image
+	 */
+	private Image createManagedImage(BufferedImage sourceImage) {
 		// create an accelerated image of the right size to store our sprite in
-		GraphicsConfiguration gc = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+		GraphicsConfiguration gc = getDefaultConfiguration();
 		Image image = gc.createCompatibleImage(sourceImage.getWidth(),sourceImage.getHeight(),Transparency.BITMASK);
 		
 		// draw our source image into the accelerated image
 		image.getGraphics().drawImage(sourceImage,0,0,null);
 		
-		// create a sprite, add it the cache then return it
-		Sprite sprite = new Java2DSprite(window,image);
-		sprites.put(ref,sprite);
-		
-		return sprite;
+		return image;
+	}
+	
+	/**
+	 * Get the configuration of the default screen, which images are made
+	 * compatible with when there is no window to take it from
+	 * 
+	 * @return The default graphics configuration
+	 */
+	static GraphicsConfiguration getDefaultConfiguration() {
+		return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
 	}
 	
 	/**
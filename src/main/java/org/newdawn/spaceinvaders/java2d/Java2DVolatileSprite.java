@@ -0,0 +1,152 @@
+package org.newdawn.spaceinvaders.java2d;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+
+import org.newdawn.spaceinvaders.Sprite;
+import org.newdawn.spaceinvaders.util.CollisionMask;
+
+/**
+ * A sprite whose image is kept in a VolatileImage, i.e. in video memory
+ * where the pipeline supports it, rather than leaving it to the JDK to
+ * decide whether a managed image is worth caching there.
+ *
+ * The contents of a VolatileImage can be lost at any time, e.g. when the
+ * display mode changes or another application takes the video memory. So
+ * the image is validated against the window's graphics configuration
+ * before each draw and restored from the source image when its contents
+ * have gone, and the draw is repeated if they were lost while drawing.
+ */
+public class Java2DVolatileSprite implements Sprite {
+	/** The image the sprite was loaded from, used to restore the volatile copy */
+	private BufferedImage source;
+	/** The copy of the image held in video memory */
+	private VolatileImage image;
+	/** The game window to which this sprite is going to be drawn */
+	private Java2DGameWindow window;
+	/** The mask of the opaque pixels of the image */
+	private CollisionMask mask;
+
+	/**
+	 * Create a new sprite based on an image
+	 *
+	 * @param window The game window to which this sprite is going to be drawn
+	 * @param source The image that is this sprite
+	 * @param mask The mask of the opaque pixels of the image
+	 */
+	public Java2DVolatileSprite(Java2DGameWindow window,BufferedImage source,CollisionMask mask) {
+		this.window = window;
+		this.source = source;
+		this.mask = mask;
+
+		image = create(getGraphicsConfiguration());
+	}
+
+	/**
+	 * Get the graphics configuration of the window the sprite is drawn to
+	 *
+	 * @return The configuration the volatile image should be compatible with
+	 */
+	private GraphicsConfiguration getGraphicsConfiguration() {
+		GraphicsConfiguration gc = window.getGraphicsConfiguration();
+
+		if (gc == null) {
+			gc = Java2DSpriteStore.getDefaultConfiguration();
+		}
+
+		return gc;
+	}
+
+	/**
+	 * Create a volatile image for the sprite and copy the source image into it
+	 *
+	 * @param gc The configuration the image should be compatible with
+	 * @return The new volatile image
+	 */
+	private VolatileImage create(GraphicsConfiguration gc) {
+		VolatileImage created = gc.createCompatibleVolatileImage(source.getWidth(),source.getHeight(),Transparency.BITMASK);
+		restore(created);
+
+		return created;
+	}
+
+	/**
+	 * Copy the source image into a volatile image, replacing whatever it
+	 * held before
+	 *
+	 * @param target The volatile image to restore
+	 */
+	private void restore(VolatileImage target) {
+		Graphics2D g = target.createGraphics();
+		g.setComposite(AlphaComposite.Src);
+		g.drawImage(source,0,0,null);
+		g.dispose();
+	}
+
+	/**
+	 * Check if the image of this sprite is held in accelerated memory
+	 *
+	 * @return True if the volatile image is accelerated
+	 */
+	public boolean isAccelerated() {
+		return image.getCapabilities().isAccelerated();
+	}
+
+	/**
+	 * Get the width of the drawn sprite
+	 *
+	 * @return The width in pixels of this sprite
+	 */
+	public int getWidth() {
+		return source.getWidth();
+	}
+
+	/**
+	 * Get the height of the drawn sprite
+	 *
+	 * @return The height in pixels of this sprite
+	 */
+	public int getHeight() {
+		return source.getHeight();
+	}
+
+	/**
+	 * Draw the sprite onto the window, restoring the image first if its
+	 * contents were lost
+	 *
+	 * @param x The x location at which to draw the sprite
+	 * @param y The y location at which to draw the sprite
+	 */
+	public void draw(int x,int y) {
+		Graphics2D g = window.getDrawGraphics();
+
+		do {
+			GraphicsConfiguration gc = getGraphicsConfiguration();
+			int status = image.validate(gc);
+
+			if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+				// the window has moved to a different device, so the
+				// image has to be created again for it
+				image.flush();
+				image = create(gc);
+			} else if (status == VolatileImage.IMAGE_RESTORED) {
+				restore(image);
+			}
+
+			g.drawImage(image,x,y,null);
+		} while (image.contentsLost());
+	}
+
+	/**
+	 * Get the mask of the opaque pixels of this sprite
+	 *
+	 * @return The collision mask of this sprite
+	 */
+	public CollisionMask getCollisionMask() {
+		return mask;
+	}
+}
@@ -3,6 +3,8 @@ package org.newdawn.spaceinvaders.jogl;
 import org.newdawn.spaceinvaders.GameWindow;
 import org.newdawn.spaceinvaders.GameWindowCallback;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import com.jogamp.nativewindow.WindowClosingProtocol.WindowClosingMode;
 import com.jogamp.newt.event.KeyEvent;
 import com.jogamp.newt.event.KeyListener;
@@ -13,7 +15,7 @@ import com.jogamp.opengl.GLAutoDrawable;
 import com.jogamp.opengl.GLCapabilities;
 import com.jogamp.opengl.GLEventListener;
 import com.jogamp.opengl.GLProfile;
-import com.jogamp.opengl.util.FPSAnimator;
+import com.jogamp.opengl.util.Animator;
 
 /**
  * An implementation of GameWindow that will use OPENGL (JOGL) to
@@ -39,12 +41,21 @@ public class JoglGLWindow implements GLEventListener, GameWindow {
 	/** The loader responsible for converting images into OpenGL textures */
 	private TextureLoader textureLoader;
 
+	/** The batch that collects the sprites drawn each frame */
+	private SpriteBatch spriteBatch = new SpriteBatch();
+
 	private String title = GameWindow.TITLE + getClass().getSimpleName();
 	
-	private FPSAnimator animator;
+	private Animator animator;
 	
 	private int whichwasPressed = KeyEvent.VK_F13;
 
+	/** The time the oldest key event since the last poll was received, 0 if there was none */
+	private AtomicLong receivedTime = new AtomicLong();
+
+	/** The time the oldest key event brought in by the last poll was received, 0 if there was none */
+	private long inputTime;
+
 	private GLWindow glWindow;
 
 	/**
@@ -60,6 +71,17 @@ public class JoglGLWindow implements GLEventListener, GameWindow {
 		return textureLoader;
 	}
 
+	/**
+	 * Retrieve the batch that collects the sprites drawn each frame. Note,
+	 * this has been made package level since only the JOGL sprites need to
+	 * access it.
+	 * 
+	 * @return The batch sprites should be drawn through
+	 */
+	SpriteBatch getSpriteBatch() {
+		return spriteBatch;
+	}
+
 	GLWindow getGLWindow() {
 		if(glWindow == null) {
 			glWindow = createGLWindow();
@@ -119,6 +141,7 @@ public class JoglGLWindow implements GLEventListener, GameWindow {
 		glw.addKeyListener(new KeyListener() {
 			@Override
 			public void keyReleased(KeyEvent e) {
+				keyReceived(e);
 				whichwasPressed = KeyEvent.VK_F13;
 			}
 
@@ -127,6 +150,7 @@ public class JoglGLWindow implements GLEventListener, GameWindow {
 			 */
 			@Override
 			public void keyPressed(KeyEvent e) {
+				keyReceived(e);
 				if ( e.getKeyCode() == KeyEvent.VK_LEFT) {
 					whichwasPressed = java.awt.event.KeyEvent.VK_LEFT;
 				} else if ( e.getKeyCode() == KeyEvent.VK_RIGHT) {
@@ -137,7 +161,8 @@ public class JoglGLWindow implements GLEventListener, GameWindow {
 			}
 		});
 
-		animator = new FPSAnimator(glw, 60, true);
+		// redraw as fast as possible, the game paces its own frames
+		animator = new Animator(glw);
 		animator.start();
 	}
 
@@ -165,6 +190,38 @@ public class JoglGLWindow implements GLEventListener, GameWindow {
 		this.callback = callback;
 	}
 
+	/**
+	 * Note the time a key event was received, unless an older one is
+	 * still waiting to be polled. Events sent while a key auto repeats
+	 * aren't new input so are ignored.
+	 *
+	 * @param e The key event received
+	 */
+	private void keyReceived(KeyEvent e) {
+		if (!e.isAutoRepeat()) {
+			receivedTime.compareAndSet(0, System.nanoTime());
+		}
+	}
+
+	/**
+	 * Bring the status of the keys up to date with the input received
+	 * since the last poll. The last key pressed is recorded as the event
+	 * arrives, so only the time of the input is brought up to date.
+	 */
+	public void pollInput() {
+		inputTime = receivedTime.getAndSet(0);
+	}
+
+	/**
+	 * Get the time the oldest key event brought in by the last call to
+	 * pollInput() was received
+	 *
+	 * @return The value of System.nanoTime() when the event was received, 0 if the poll found no new events
+	 */
+	public long getInputTime() {
+		return inputTime;
+	}
+
 	/**
 	 * Compare the stored Key
 	 *
@@ -200,6 +257,10 @@ public class JoglGLWindow implements GLEventListener, GameWindow {
 
 		textureLoader = new TextureLoader(drawable.getGL());
 
+		// swap the buffers ourselves at the end of each frame, so the
+		// callback can be told when the frame has been shown
+		drawable.setAutoSwapBufferMode(false);
+
 		if (callback != null) {
 			callback.initialise();
 		}
@@ -222,14 +283,26 @@ public class JoglGLWindow implements GLEventListener, GameWindow {
 		gl.glMatrixMode(GL2.GL_MODELVIEW);
 		gl.glLoadIdentity();
 
+		// upload any sprite images that have been decoded since the
+		// last frame, until then they're drawn transparent
+		textureLoader.uploadPending();
+
 		// if a callback has been registered notify it that the
-		// screen is being rendered
+		// screen is being rendered, the sprites it draws are collected
+		// and sent to the card together
+		spriteBatch.begin(gl);
 		if (callback != null) {
 			callback.frameRendering();
 		}
+		spriteBatch.end();
 
-		// flush the graphics commands to the card
+		// flush the graphics commands to the card and show the frame
 		gl.glFlush();
+		drawable.swapBuffers();
+
+		if (callback != null) {
+			callback.frameShown();
+		}
 	}
 
 	/**
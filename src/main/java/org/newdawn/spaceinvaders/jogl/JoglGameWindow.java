@@ -29,6 +29,8 @@ public class JoglGameWindow implements GLEventListener, GameWindow {
 	private Frame frame;
 	/** The callback which should be notified of window events */
 	private GameWindowCallback callback;
+	/** The keyboard tracking the keys pressed in this window */
+	private Keyboard keyboard = new Keyboard();
 	/** The width of the game display area */
 	private int width;
 	/** The height of the game display area */
@@ -40,6 +42,9 @@ public class JoglGameWindow implements GLEventListener, GameWindow {
 	/** The loader responsible for converting images into OpenGL textures */
 	private TextureLoader textureLoader;
 
+	/** The batch that collects the sprites drawn each frame */
+	private SpriteBatch spriteBatch = new SpriteBatch();
+
 	private String title = GameWindow.TITLE + getClass().getSimpleName();
 
 	private Animator animator;
@@ -65,6 +70,17 @@ public class JoglGameWindow implements GLEventListener, GameWindow {
 		return textureLoader;
 	}
 
+	/**
+	 * Retrieve the batch that collects the sprites drawn each frame. Note,
+	 * this has been made package level since only the JOGL sprites need to
+	 * access it.
+	 * 
+	 * @return The batch sprites should be drawn through
+	 */
+	SpriteBatch getSpriteBatch() {
+		return spriteBatch;
+	}
+
 	/**
 	 * Get access to the GL context that can be used in JOGL to
 	 * call OpenGL commands.
@@ -110,7 +126,7 @@ public class JoglGameWindow implements GLEventListener, GameWindow {
 		canvas = new GLCanvas();
 		canvas.addGLEventListener(this);
 		canvas.setFocusable(true);
-		Keyboard.init(canvas);
+		keyboard.init(canvas);
 
 		frame.setLayout(new BorderLayout());
 		frame.add(canvas);
@@ -132,7 +148,8 @@ public class JoglGameWindow implements GLEventListener, GameWindow {
 			}
 		});
 
-		// start a animating thread (provided by JOGL) to actively update the canvas
+		// start a animating thread (provided by JOGL) to actively update the canvas,
+		// the game paces its own frames
 		animator = new Animator(canvas);
 		animator.start();
 	}
@@ -154,6 +171,24 @@ public class JoglGameWindow implements GLEventListener, GameWindow {
 		this.callback = callback;
 	}
 
+	/**
+	 * Bring the status of the keys up to date with the input received
+	 * since the last poll
+	 */
+	public void pollInput() {
+		keyboard.poll();
+	}
+
+	/**
+	 * Get the time the oldest key event brought in by the last call to
+	 * pollInput() was received
+	 * 
+	 * @return The value of System.nanoTime() when the event was received, 0 if the poll found no new events
+	 */
+	public long getInputTime() {
+		return keyboard.getEventTime();
+	}
+	
 	/**
 	 * Check if a particular key is current pressed.
 	 *
@@ -162,7 +197,7 @@ public class JoglGameWindow implements GLEventListener, GameWindow {
 	 * @return True if the specified key is pressed
 	 */
 	public boolean isKeyPressed(int keyCode) {
-		return Keyboard.isPressed(keyCode);
+		return keyboard.isPressed(keyCode);
 	}
 
 	/**
@@ -188,6 +223,10 @@ public class JoglGameWindow implements GLEventListener, GameWindow {
 
 		textureLoader = new TextureLoader(drawable.getGL());
 
+		// swap the buffers ourselves at the end of each frame, so the
+		// callback can be told when the frame has been shown
+		drawable.setAutoSwapBufferMode(false);
+
 		if (callback != null) {
 			callback.initialise();
 		}
@@ -210,14 +249,26 @@ public class JoglGameWindow implements GLEventListener, GameWindow {
 		gl.glMatrixMode(GL2.GL_MODELVIEW);
 		gl.glLoadIdentity();
 
+		// upload any sprite images that have been decoded since the
+		// last frame, until then they're drawn transparent
+		textureLoader.uploadPending();
+
 		// if a callback has been registered notify it that the
-		// screen is being rendered
+		// screen is being rendered, the sprites it draws are collected
+		// and sent to the card together
+		spriteBatch.begin(gl);
 		if (callback != null) {
 			callback.frameRendering();
 		}
+		spriteBatch.end();
 
-		// flush the graphics commands to the card
+		// flush the graphics commands to the card and show the frame
 		gl.glFlush();
+		drawable.swapBuffers();
+
+		if (callback != null) {
+			callback.frameShown();
+		}
 	}
 
 	/**
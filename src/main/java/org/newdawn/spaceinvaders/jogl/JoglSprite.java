@@ -4,8 +4,7 @@ import java.io.IOException;
 
 import org.newdawn.spaceinvaders.GameWindow;
 import org.newdawn.spaceinvaders.Sprite;
-
-import com.jogamp.opengl.GL2;
+import org.newdawn.spaceinvaders.util.CollisionMask;
 
 /**
  * Implementation of sprite that uses an OpenGL quad and a texture
@@ -28,9 +27,9 @@ public class JoglSprite implements Sprite {
 	private int height;
 	
 	/**
-	 * Context to draw
+	 * The batch collecting the sprites of the window
 	 */
-	private GL2 glContext;
+	private SpriteBatch batch;
 	
 	/**
 	 * Create a new sprite from a specified image.
@@ -41,7 +40,7 @@ public class JoglSprite implements Sprite {
 	public JoglSprite(JoglGameWindow window,String ref) {
 		try {
 			this.window = window;
-			this.glContext = window.getGL();
+			this.batch = window.getSpriteBatch();
 			texture = window.getTextureLoader().getTexture(ref);
 			
 			width = texture.getImageWidth();
@@ -62,7 +61,7 @@ public class JoglSprite implements Sprite {
 	 */
 	public JoglSprite(JoglGLWindow glWindow,String ref) {
 		try {
-			this.glContext = glWindow.getGL();
+			this.batch = glWindow.getSpriteBatch();
 			this.window = glWindow;
 			texture = ((JoglGLWindow) window).getTextureLoader().getTexture(ref);
 			
@@ -95,41 +94,22 @@ public class JoglSprite implements Sprite {
 	}
 
 	/**
-	 * Draw the sprite at the specified location
+	 * Draw the sprite at the specified location. The sprite is added to
+	 * the window's batch and reaches the screen when the batch is flushed.
 	 * 
 	 * @param x The x location at which to draw this sprite
 	 * @param y The y location at which to draw this sprite
 	 */
 	public void draw(int x, int y) {
-		// get hold of the GL content from the window in which we're drawning
-//		GL2 gl = window.getGL().getGL2();
-		GL2 gl = glContext;
-		
-		// store the current model matrix
-		gl.glPushMatrix();
-		
-		// bind to the appropriate texture for this sprite
-		texture.bind(gl);		
-		// translate to the right location and prepare to draw
-		gl.glTranslatef(x, y, 0);		
-		gl.glColor3f(1,1,1);
-		
-		// draw a quad textured to match the sprite
-		gl.glBegin(GL2.GL_QUADS);
-		{
-			gl.glTexCoord2f(0, 0);
-			gl.glVertex2f(0, 0);
-			gl.glTexCoord2f(0, texture.getHeight());
-			gl.glVertex2f(0, height);
-			gl.glTexCoord2f(texture.getWidth(), texture.getHeight());
-			gl.glVertex2f(width,height);
-			gl.glTexCoord2f(texture.getWidth(), 0);
-			gl.glVertex2f(width,0);
-		}
-		gl.glEnd();
-		
-		// restore the model view matrix to prevent contamination
-		gl.glPopMatrix();
+		batch.draw(texture, x, y, width, height);
 	}
 	
+	/**
+	 * Get the mask of the opaque pixels of this sprite
+	 * 
+	 * @return The collision mask of this sprite
+	 */
+	public CollisionMask getCollisionMask() {
+		return texture.getCollisionMask();
+	}
 }
\ No newline at end of file
@@ -0,0 +1,136 @@
+package org.newdawn.spaceinvaders.jogl;
+
+import java.nio.FloatBuffer;
+
+import com.jogamp.common.nio.Buffers;
+import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2;
+
+/**
+ * Collects the quads of the sprites drawn during a frame into vertex
+ * arrays and hands them to OpenGL in as few draw calls as possible.
+ * Quads are only flushed when the texture changes, when the arrays are
+ * full or at the end of the frame, so the number of draw calls depends
+ * on the number of textures rather than the number of sprites. With the
+ * texture atlas enabled that is usually a single draw call.
+ *
+ * Sprites are still drawn in the order they were requested, so overlapping
+ * sprites look exactly as they did when each was drawn on its own.
+ */
+public class SpriteBatch {
+	/** The number of sprites that fit in the arrays before they have to be flushed */
+	private static final int MAX_SPRITES = 1024;
+	/** The number of floats needed for the vertices of a single sprite */
+	private static final int FLOATS_PER_SPRITE = 8;
+
+	/** The vertex locations of the collected quads */
+	private FloatBuffer vertices = Buffers.newDirectFloatBuffer(MAX_SPRITES * FLOATS_PER_SPRITE);
+	/** The texture coordinates of the collected quads */
+	private FloatBuffer texCoords = Buffers.newDirectFloatBuffer(MAX_SPRITES * FLOATS_PER_SPRITE);
+	/** The GL context being drawn to, only valid between begin and end */
+	private GL2 gl;
+	/** The texture used by the collected quads */
+	private Texture texture;
+	/** The number of sprites collected so far */
+	private int count;
+	/** The number of draw calls made in the current frame */
+	private int drawCalls;
+	/** The number of draw calls made in the last complete frame */
+	private int lastDrawCalls;
+
+	/**
+	 * Start collecting sprites for a new frame
+	 *
+	 * @param gl The GL context to draw to
+	 */
+	public void begin(GL2 gl) {
+		this.gl = gl;
+		texture = null;
+		count = 0;
+		drawCalls = 0;
+	}
+
+	/**
+	 * Add a sprite to the batch
+	 *
+	 * @param texture The texture holding the image of the sprite
+	 * @param x The x location at which to draw the sprite
+	 * @param y The y location at which to draw the sprite
+	 * @param width The width of the sprite in pixels
+	 * @param height The height of the sprite in pixels
+	 */
+	public void draw(Texture texture,int x,int y,int width,int height) {
+		// sprites packed on the same atlas page share a texture ID
+		// and can go into the same draw call
+		if (((this.texture != null) && (this.texture.getTextureID() != texture.getTextureID())) || (count == MAX_SPRITES)) {
+			flush();
+		}
+		this.texture = texture;
+
+		float right = x + width;
+		float bottom = y + height;
+		float u0 = texture.getXOffset();
+		float v0 = texture.getYOffset();
+		float u1 = u0 + texture.getWidth();
+		float v1 = v0 + texture.getHeight();
+
+		// the corners in the same order the immediate mode quads used
+		vertices.put(x).put(y);
+		vertices.put(x).put(bottom);
+		vertices.put(right).put(bottom);
+		vertices.put(right).put(y);
+
+		texCoords.put(u0).put(v0);
+		texCoords.put(u0).put(v1);
+		texCoords.put(u1).put(v1);
+		texCoords.put(u1).put(v0);
+
+		count++;
+	}
+
+	/**
+	 * Finish the frame, drawing any sprites still waiting
+	 */
+	public void end() {
+		flush();
+		lastDrawCalls = drawCalls;
+		gl = null;
+	}
+
+	/**
+	 * Get the number of draw calls made in the last complete frame
+	 *
+	 * @return The number of draw calls made
+	 */
+	public int getDrawCalls() {
+		return lastDrawCalls;
+	}
+
+	/**
+	 * Draw all the sprites collected so far
+	 */
+	private void flush() {
+		if (count == 0) {
+			return;
+		}
+
+		vertices.flip();
+		texCoords.flip();
+
+		texture.bind(gl);
+		gl.glColor3f(1,1,1);
+
+		gl.glEnableClientState(GL2.GL_VERTEX_ARRAY);
+		gl.glEnableClientState(GL2.GL_TEXTURE_COORD_ARRAY);
+		gl.glVertexPointer(2,GL.GL_FLOAT,0,vertices);
+		gl.glTexCoordPointer(2,GL.GL_FLOAT,0,texCoords);
+		gl.glDrawArrays(GL2.GL_QUADS,0,count * 4);
+		gl.glDisableClientState(GL2.GL_TEXTURE_COORD_ARRAY);
+		gl.glDisableClientState(GL2.GL_VERTEX_ARRAY);
+
+		vertices.clear();
+		texCoords.clear();
+		count = 0;
+		drawCalls++;
+	}
+}
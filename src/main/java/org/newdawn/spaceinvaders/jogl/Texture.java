@@ -1,5 +1,9 @@
 package org.newdawn.spaceinvaders.jogl;
 
+import java.util.concurrent.CompletableFuture;
+
+import org.newdawn.spaceinvaders.util.CollisionMask;
+
 import com.jogamp.opengl.GL;
 
 //import net.java.games.jogl.GL;
@@ -33,6 +37,18 @@ public class Texture {
     private float widthRatio;
     /** The ratio of the height of the image to the texture */
     private float heightRatio;
+    /** The x location of the image within the texture */
+    private int x;
+    /** The y location of the image within the texture */
+    private int y;
+    /** The x location of the image within the texture in texture coordinates */
+    private float xOffset;
+    /** The y location of the image within the texture in texture coordinates */
+    private float yOffset;
+    /** The mask of the opaque pixels of the image */
+    private CollisionMask collisionMask;
+    /** The decoding of the image on the decoder pool, null if it was decoded when loaded */
+    private CompletableFuture<?> decoding;
     
     /**
      * Create a new texture
@@ -54,6 +70,31 @@ public class Texture {
         gl.glBindTexture(target, textureID); 
     }
     
+    /**
+     * Get the GL texture ID. Textures packed into the same atlas
+     * page share an ID.
+     *
+     * @return The GL texture ID
+     */
+    public int getTextureID() {
+        return textureID;
+    }
+    
+    /**
+     * Set the location of the image within the texture. This is only
+     * needed when the image doesn't fill the texture from its top
+     * left corner, i.e. when its been packed into an atlas.
+     *
+     * @param x The x location of the image in pixels
+     * @param y The y location of the image in pixels
+     */
+    public void setLocation(int x,int y) {
+        this.x = x;
+        this.y = y;
+        setWidth();
+        setHeight();
+    }
+    
     /**
      * Set the height of the image
      *
@@ -110,6 +151,24 @@ public class Texture {
         return widthRatio;
     }
     
+    /**
+     * Get the x location of the image in texture coordinates
+     *
+     * @return The x location of the image within the texture
+     */
+    public float getXOffset() {
+        return xOffset;
+    }
+    
+    /**
+     * Get the y location of the image in texture coordinates
+     *
+     * @return The y location of the image within the texture
+     */
+    public float getYOffset() {
+        return yOffset;
+    }
+    
     /**
      * Set the height of this texture 
      *
@@ -130,6 +189,48 @@ public class Texture {
         setWidth();
     }
     
+    /**
+     * Set the mask of the opaque pixels of the image
+     *
+     * @param collisionMask The mask of the image
+     */
+    public void setCollisionMask(CollisionMask collisionMask) {
+        this.collisionMask = collisionMask;
+    }
+    
+    /**
+     * Set the decoding of the image, which sets the collision mask
+     * once it has finished
+     *
+     * @param decoding The decoding of the image on the decoder pool
+     */
+    void setDecoding(CompletableFuture<?> decoding) {
+        this.decoding = decoding;
+    }
+    
+    /**
+     * Check if the image has been decoded. Until it has been decoded
+     * and uploaded the texture is transparent.
+     *
+     * @return True if the image has been decoded
+     */
+    public boolean isDecoded() {
+        return (decoding == null) || (decoding.isDone());
+    }
+    
+    /**
+     * Get the mask of the opaque pixels of the image. If the image is
+     * still being decoded this waits for the decoding to finish.
+     *
+     * @return The mask of the image, null if it was never set
+     */
+    public CollisionMask getCollisionMask() {
+        if (decoding != null) {
+            decoding.join();
+        }
+        return collisionMask;
+    }
+    
     /**
      * Set the height of the texture. This will update the
      * ratio also.
@@ -137,6 +238,7 @@ public class Texture {
     private void setHeight() {
         if (texHeight != 0) {
             heightRatio = ((float) height)/texHeight;
+            yOffset = ((float) y)/texHeight;
         }
     }
     
@@ -147,6 +249,7 @@ public class Texture {
     private void setWidth() {
         if (texWidth != 0) {
             widthRatio = ((float) width)/texWidth;
+            xOffset = ((float) x)/texWidth;
         }
     }
 }
@@ -12,15 +12,27 @@ import java.awt.image.Raster;
 import java.awt.image.WritableRaster;
 import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URL;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.nio.IntBuffer;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
 
 import javax.imageio.ImageIO;
 
+import org.newdawn.spaceinvaders.util.AtlasPacker;
+import org.newdawn.spaceinvaders.util.CollisionMask;
+import org.newdawn.spaceinvaders.util.DecoderPool;
+import org.newdawn.spaceinvaders.util.GifHeader;
+import org.newdawn.spaceinvaders.util.NativeBufferArena;
+import org.newdawn.spaceinvaders.util.SpritePack;
+
 import com.jogamp.opengl.GL;
+import com.jogamp.opengl.GL2;
 
 /**
  * A utility class to load textures for JOGL. This source is based
@@ -43,6 +55,26 @@ public class TextureLoader {
     private ColorModel glAlphaColorModel;
     /** The colour model for the GL image */
     private ColorModel glColorModel;
+    /** The width and height of each page of the atlas */
+    private static final int ATLAS_PAGE_SIZE = 512;
+    /** True if images should be packed into atlas pages rather than getting a texture each */
+    private boolean atlasEnabled = Boolean.getBoolean("spaceinvaders.atlas");
+    /** The GL texture ID of the atlas page images are currently packed into */
+    private int atlasPageID;
+    /** The packer placing images on the current atlas page, null until the first page is created */
+    private AtlasPacker atlasPacker;
+    /** The pack of sprite images built with the game, null if there is none */
+    private SpritePack pack = SpritePack.get();
+    /** The executor decoding images, null if images are decoded on the GL thread */
+    private Executor decoder = DecoderPool.getExecutor();
+    /** The uploads of decoded images waiting to be run on the GL thread */
+    private ConcurrentLinkedQueue<Runnable> uploads = new ConcurrentLinkedQueue<>();
+    /** The number of texture IDs generated at once */
+    private static final int ID_BATCH = 16;
+    /** The arena the staging buffers for uploads are taken from */
+    private NativeBufferArena arena = NativeBufferArena.get();
+    /** The texture IDs generated but not yet used, null until the first batch is generated */
+    private IntBuffer textureIDs;
     
     /** 
      * Create a new texture loader based on the game panel
@@ -74,10 +106,18 @@ public class TextureLoader {
      */
     private int createTextureID() 
     { 
-       int[] tmp = new int[1]; 
-       gl.glGenTextures(1, tmp, 0); 
-//       gl.glGenTextures(1, tmp); 
-       return tmp[0]; 
+       // IDs are generated a batch at a time, into a buffer that's
+       // kept for the next batch
+       if (textureIDs == null) {
+           textureIDs = arena.acquire(ID_BATCH * 4).asIntBuffer();
+           textureIDs.position(textureIDs.limit());
+       }
+       if (!textureIDs.hasRemaining()) {
+           textureIDs.clear();
+           gl.glGenTextures(ID_BATCH, textureIDs);
+           textureIDs.rewind();
+       }
+       return textureIDs.get();
     } 
     
     /**
@@ -94,6 +134,31 @@ public class TextureLoader {
             return tex;
         }
         
+        // images packed at build time are ready to upload as they are
+        SpritePack.Entry entry = (pack != null) ? pack.getEntry(resourceName) : null;
+        if (entry != null) {
+            tex = getPackedTexture(entry);
+            table.put(resourceName,tex);
+            
+            return tex;
+        }
+        
+        // only the header of a GIF is needed to lay out its texture, so
+        // those can be decoded later
+        if ((decoder != null) && (resourceName.endsWith(".gif"))) {
+            tex = getTextureLater(resourceName);
+            table.put(resourceName,tex);
+            
+            return tex;
+        }
+        
+        if (atlasEnabled) {
+            tex = getAtlasTexture(resourceName);
+            table.put(resourceName,tex);
+            
+            return tex;
+        }
+        
         tex = getTexture(resourceName,
                          GL.GL_TEXTURE_2D, // target
                          GL.GL_RGBA,     // dst pixel format
@@ -105,6 +170,282 @@ public class TextureLoader {
         return tex;
     }
     
+    /**
+     * Indicate whether images should be packed into a texture atlas. Packed
+     * images share a few large textures so that drawing different sprites
+     * one after the other doesn't need the texture to be rebound. This only
+     * affects images loaded after the call.
+     *
+     * @param atlasEnabled True if images should be packed into an atlas
+     */
+    public void setAtlasEnabled(boolean atlasEnabled) {
+        this.atlasEnabled = atlasEnabled;
+    }
+    
+    /**
+     * Check if images are packed into a texture atlas
+     *
+     * @return True if images are packed into an atlas
+     */
+    public boolean isAtlasEnabled() {
+        return atlasEnabled;
+    }
+    
+    /**
+     * Load an image into the current page of the atlas, starting a new
+     * page if it is full.
+     *
+     * @param resourceName The location of the resource to load
+     * @return The texture describing where the image is on its page
+     * @throws IOException Indicates a failure to access the resource
+     */
+    private Texture getAtlasTexture(String resourceName) throws IOException {
+        BufferedImage bufferedImage = loadImage(resourceName);
+        int width = bufferedImage.getWidth();
+        int height = bufferedImage.getHeight();
+        
+        // images that would never fit on a page get a texture of their own
+        if ((width >= ATLAS_PAGE_SIZE) || (height >= ATLAS_PAGE_SIZE)) {
+            return getTexture(resourceName, GL.GL_TEXTURE_2D, GL.GL_RGBA, GL.GL_LINEAR, GL.GL_LINEAR);
+        }
+        
+        if ((atlasPacker == null) || (!atlasPacker.place(width,height))) {
+            createAtlasPage();
+            atlasPacker.place(width,height);
+        }
+        
+        Texture texture = new Texture(GL.GL_TEXTURE_2D,atlasPageID);
+        texture.setTextureWidth(ATLAS_PAGE_SIZE);
+        texture.setTextureHeight(ATLAS_PAGE_SIZE);
+        texture.setWidth(width);
+        texture.setHeight(height);
+        texture.setCollisionMask(CollisionMask.fromImage(bufferedImage));
+        texture.setLocation(atlasPacker.getX(),atlasPacker.getY());
+        
+        // copy the image into its place on the page
+        ByteBuffer textureBuffer = convertImageData(bufferedImage,width,height,true);
+        textureBuffer.rewind();
+        gl.glBindTexture(GL.GL_TEXTURE_2D, atlasPageID);
+        gl.glTexSubImage2D(GL.GL_TEXTURE_2D, 0, atlasPacker.getX(), atlasPacker.getY(), width, height, GL.GL_RGBA, GL.GL_UNSIGNED_BYTE, textureBuffer);
+        arena.release(textureBuffer);
+        
+        return texture;
+    }
+    
+    /**
+     * Load a texture from the sprite pack. The texture data is handed to
+     * OpenGL straight from the mapped pack, nothing is decoded or copied.
+     *
+     * @param entry The image in the pack
+     * @return The loaded texture
+     */
+    private Texture getPackedTexture(SpritePack.Entry entry) {
+        int width = entry.getWidth();
+        int height = entry.getHeight();
+        ByteBuffer data = entry.getData();
+        
+        Texture texture;
+        if (atlasEnabled && (width < ATLAS_PAGE_SIZE) && (height < ATLAS_PAGE_SIZE)) {
+            if ((atlasPacker == null) || (!atlasPacker.place(width,height))) {
+                createAtlasPage();
+                atlasPacker.place(width,height);
+            }
+            
+            texture = new Texture(GL.GL_TEXTURE_2D,atlasPageID);
+            texture.setTextureWidth(ATLAS_PAGE_SIZE);
+            texture.setTextureHeight(ATLAS_PAGE_SIZE);
+            texture.setLocation(atlasPacker.getX(),atlasPacker.getY());
+            
+            // only the image is copied onto the page, the rows of the
+            // packed data are as long as the padded texture
+            gl.glBindTexture(GL.GL_TEXTURE_2D, atlasPageID);
+            gl.glPixelStorei(GL2.GL_UNPACK_ROW_LENGTH, entry.getTextureWidth());
+            gl.glTexSubImage2D(GL.GL_TEXTURE_2D, 0, atlasPacker.getX(), atlasPacker.getY(), width, height, GL.GL_RGBA, GL.GL_UNSIGNED_BYTE, data);
+            gl.glPixelStorei(GL2.GL_UNPACK_ROW_LENGTH, 0);
+        } else {
+            texture = new Texture(GL.GL_TEXTURE_2D,createTextureID());
+            texture.setTextureWidth(entry.getTextureWidth());
+            texture.setTextureHeight(entry.getTextureHeight());
+            
+            gl.glBindTexture(GL.GL_TEXTURE_2D, texture.getTextureID());
+            gl.glTexParameteri(GL.GL_TEXTURE_2D, GL.GL_TEXTURE_MIN_FILTER, GL.GL_LINEAR);
+            gl.glTexParameteri(GL.GL_TEXTURE_2D, GL.GL_TEXTURE_MAG_FILTER, GL.GL_LINEAR);
+            gl.glTexImage2D(GL.GL_TEXTURE_2D, 0, GL.GL_RGBA, entry.getTextureWidth(), entry.getTextureHeight(), 0, GL.GL_RGBA, GL.GL_UNSIGNED_BYTE, data);
+        }
+        texture.setWidth(width);
+        texture.setHeight(height);
+        texture.setCollisionMask(entry.createCollisionMask());
+        
+        return texture;
+    }
+    
+    /**
+     * Lay out a texture for an image and start decoding the image on the
+     * decoder pool. Only the header of the image is read here, which is
+     * enough to size the texture or place it on the atlas. The texture is
+     * transparent until the decoded image has been uploaded by
+     * uploadPending().
+     *
+     * @param resourceName The location of the GIF image to load
+     * @return The texture the image will be uploaded to
+     * @throws IOException Indicates a failure to access the resource
+     */
+    private Texture getTextureLater(String resourceName) throws IOException {
+        GifHeader header = GifHeader.read(resourceName);
+        int width = header.getWidth();
+        int height = header.getHeight();
+        boolean atlas = atlasEnabled && (width < ATLAS_PAGE_SIZE) && (height < ATLAS_PAGE_SIZE);
+        
+        Texture texture;
+        int x = 0;
+        int y = 0;
+        int texWidth;
+        int texHeight;
+        if (atlas) {
+            if ((atlasPacker == null) || (!atlasPacker.place(width,height))) {
+                createAtlasPage();
+                atlasPacker.place(width,height);
+            }
+            x = atlasPacker.getX();
+            y = atlasPacker.getY();
+            texWidth = width;
+            texHeight = height;
+            
+            // the page starts out transparent so there's nothing to upload yet
+            texture = new Texture(GL.GL_TEXTURE_2D,atlasPageID);
+            texture.setTextureWidth(ATLAS_PAGE_SIZE);
+            texture.setTextureHeight(ATLAS_PAGE_SIZE);
+            texture.setLocation(x,y);
+        } else {
+            texWidth = get2Fold(width);
+            texHeight = get2Fold(height);
+            
+            texture = new Texture(GL.GL_TEXTURE_2D,createTextureID());
+            texture.setTextureWidth(texWidth);
+            texture.setTextureHeight(texHeight);
+            uploadPlaceholder(texture.getTextureID());
+        }
+        texture.setWidth(width);
+        texture.setHeight(height);
+        
+        int uploadX = x;
+        int uploadY = y;
+        CompletableFuture<DecodedImage> decoding = CompletableFuture.supplyAsync(() -> decode(resourceName,texture,texWidth,texHeight,atlas),decoder);
+        decoding.whenComplete((data,e) -> uploads.add(() -> {
+            if (e != null) {
+                throw new RuntimeException("Unable to load texture: "+resourceName,e);
+            }
+            upload(texture,data,uploadX,uploadY,atlas);
+        }));
+        texture.setDecoding(decoding);
+        
+        return texture;
+    }
+    
+    /**
+     * Decode an image and convert it into texture data. Run on the
+     * decoder pool, so nothing here may touch OpenGL.
+     *
+     * @param resourceName The location of the image to decode
+     * @param texture The texture the image will be uploaded to, given its collision mask
+     * @param texWidth The width of the texture data
+     * @param texHeight The height of the texture data
+     * @param atlas True if the image is packed into the atlas
+     * @return The texture data of the image
+     */
+    private DecodedImage decode(String resourceName,Texture texture,int texWidth,int texHeight,boolean atlas) {
+        BufferedImage bufferedImage;
+        try {
+            bufferedImage = loadImage(resourceName);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        texture.setCollisionMask(CollisionMask.fromImage(bufferedImage));
+        
+        // atlas pages always hold alpha
+        boolean alpha = atlas || bufferedImage.getColorModel().hasAlpha();
+        ByteBuffer buffer = convertImageData(bufferedImage,texWidth,texHeight,alpha);
+        
+        return new DecodedImage(buffer,alpha ? GL.GL_RGBA : GL.GL_RGB);
+    }
+    
+    /**
+     * Upload a decoded image to its texture
+     *
+     * @param texture The texture to upload to
+     * @param data The texture data of the image
+     * @param x The x location of the image on its atlas page
+     * @param y The y location of the image on its atlas page
+     * @param atlas True if the image is packed into the atlas
+     */
+    private void upload(Texture texture,DecodedImage data,int x,int y,boolean atlas) {
+        // the data is read from the position of the buffer, so start it
+        // at the beginning
+        data.buffer.rewind();
+        gl.glBindTexture(GL.GL_TEXTURE_2D, texture.getTextureID());
+        if (atlas) {
+            gl.glTexSubImage2D(GL.GL_TEXTURE_2D, 0, x, y, texture.getImageWidth(), texture.getImageHeight(), GL.GL_RGBA, GL.GL_UNSIGNED_BYTE, data.buffer);
+        } else {
+            int texWidth = get2Fold(texture.getImageWidth());
+            int texHeight = get2Fold(texture.getImageHeight());
+            gl.glTexImage2D(GL.GL_TEXTURE_2D, 0, GL.GL_RGBA, texWidth, texHeight, 0, data.format, GL.GL_UNSIGNED_BYTE, data.buffer);
+        }
+        arena.release(data.buffer);
+    }
+    
+    /**
+     * Give a texture the transparent placeholder image, shown until its
+     * own image has been uploaded
+     *
+     * @param textureID The GL texture ID of the texture
+     */
+    private void uploadPlaceholder(int textureID) {
+        ByteBuffer placeholder = arena.acquireZeroed(4);
+        
+        gl.glBindTexture(GL.GL_TEXTURE_2D, textureID);
+        gl.glTexParameteri(GL.GL_TEXTURE_2D, GL.GL_TEXTURE_MIN_FILTER, GL.GL_LINEAR);
+        gl.glTexParameteri(GL.GL_TEXTURE_2D, GL.GL_TEXTURE_MAG_FILTER, GL.GL_LINEAR);
+        gl.glTexImage2D(GL.GL_TEXTURE_2D, 0, GL.GL_RGBA, 1, 1, 0, GL.GL_RGBA, GL.GL_UNSIGNED_BYTE, placeholder);
+        arena.release(placeholder);
+    }
+    
+    /**
+     * Upload the images that have finished decoding since the last call.
+     * Must be called on the GL thread, once per frame before drawing.
+     *
+     * @return The number of images uploaded
+     */
+    public int uploadPending() {
+        int count = 0;
+        
+        Runnable upload;
+        while ((upload = uploads.poll()) != null) {
+            upload.run();
+            count++;
+        }
+        
+        return count;
+    }
+    
+    /**
+     * Create a new, empty page for the atlas and make it the page that
+     * images are packed into.
+     */
+    private void createAtlasPage() {
+        atlasPageID = createTextureID();
+        atlasPacker = new AtlasPacker(ATLAS_PAGE_SIZE,ATLAS_PAGE_SIZE,1);
+        
+        // start with a transparent page so the space between images
+        // doesn't show up when filtering
+        ByteBuffer empty = arena.acquireZeroed(ATLAS_PAGE_SIZE * ATLAS_PAGE_SIZE * 4);
+        
+        gl.glBindTexture(GL.GL_TEXTURE_2D, atlasPageID);
+        gl.glTexParameteri(GL.GL_TEXTURE_2D, GL.GL_TEXTURE_MIN_FILTER, GL.GL_LINEAR);
+        gl.glTexParameteri(GL.GL_TEXTURE_2D, GL.GL_TEXTURE_MAG_FILTER, GL.GL_LINEAR);
+        gl.glTexImage2D(GL.GL_TEXTURE_2D, 0, GL.GL_RGBA, ATLAS_PAGE_SIZE, ATLAS_PAGE_SIZE, 0, GL.GL_RGBA, GL.GL_UNSIGNED_BYTE, empty);
+        arena.release(empty);
+    }
+    
     /**
      * Load a texture into OpenGL from a image reference on
      * disk.
@@ -135,6 +476,7 @@ public class TextureLoader {
         BufferedImage bufferedImage = loadImage(resourceName); 
         texture.setWidth(bufferedImage.getWidth());
         texture.setHeight(bufferedImage.getHeight());
+        texture.setCollisionMask(CollisionMask.fromImage(bufferedImage));
         
         if (bufferedImage.getColorModel().hasAlpha()) {
             srcPixelFormat = GL.GL_RGBA;
@@ -159,6 +501,7 @@ public class TextureLoader {
         // com.jogamp.opengl.GLException: Caught IndexOutOfBoundsException: Required n remaining bytes in buffer, only had 0
         textureBuffer.rewind();
         gl.glTexImage2D(target, 0, dstPixelFormat, wFold, hFold, 0, srcPixelFormat, GL.GL_UNSIGNED_BYTE, textureBuffer); 
+        arena.release(textureBuffer);
         
         return texture; 
     } 
@@ -184,11 +527,7 @@ public class TextureLoader {
      * @param texture The texture to store the data into
      * @return A buffer containing the data
      */
-    private ByteBuffer convertImageData(BufferedImage bufferedImage ,Texture texture) { 
-        ByteBuffer imageBuffer = null; 
-        WritableRaster raster;
-        BufferedImage texImage;
-        
+    ByteBuffer convertImageData(BufferedImage bufferedImage ,Texture texture) { 
         int texWidth = 2;
         int texHeight = 2;
         
@@ -204,9 +543,27 @@ public class TextureLoader {
         texture.setTextureHeight(texHeight);
         texture.setTextureWidth(texWidth);
         
+        return convertImageData(bufferedImage,texWidth,texHeight,bufferedImage.getColorModel().hasAlpha());
+    }
+    
+    /**
+     * Convert the buffered image to texture data of a given size. The
+     * image is placed in the top left corner, the rest is left clear.
+     *
+     * @param bufferedImage The image to convert to a texture
+     * @param texWidth The width of the texture data
+     * @param texHeight The height of the texture data
+     * @param alpha True if the texture data should include alpha
+     * @return A buffer containing the data
+     */
+    private ByteBuffer convertImageData(BufferedImage bufferedImage,int texWidth,int texHeight,boolean alpha) { 
+        ByteBuffer imageBuffer = null; 
+        WritableRaster raster;
+        BufferedImage texImage;
+        
         // create a raster that can be used by OpenGL as a source
         // for a texture
-        if (bufferedImage.getColorModel().hasAlpha()) {
+        if (alpha) {
             raster = Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE,texWidth,texHeight,4,null);
             texImage = new BufferedImage(glAlphaColorModel,raster,false,new Hashtable<>());
         } else {
@@ -224,8 +581,7 @@ public class TextureLoader {
         // that be used by OpenGL to produce a texture.
         byte[] data = ((DataBufferByte) texImage.getRaster().getDataBuffer()).getData(); 
 
-        imageBuffer = ByteBuffer.allocateDirect(data.length); 
-        imageBuffer.order(ByteOrder.nativeOrder()); 
+        imageBuffer = arena.acquire(data.length); 
         imageBuffer.put(data, 0, data.length); 
         
         return imageBuffer; 
@@ -238,7 +594,7 @@ public class TextureLoader {
      * @return The loaded buffered image
      * @throws IOException Indicates a failure to find a resource
      */
-    private BufferedImage loadImage(String ref) throws IOException 
+    BufferedImage loadImage(String ref) throws IOException 
     { 
         URL url = TextureLoader.class.getClassLoader().getResource(ref);
         
@@ -250,4 +606,25 @@ public class TextureLoader {
  
         return bufferedImage;
     } 
+    
+    /**
+     * The texture data of an image decoded on the decoder pool
+     */
+    private static class DecodedImage {
+        /** The texture data */
+        private ByteBuffer buffer;
+        /** The GL pixel format of the data */
+        private int format;
+        
+        /**
+         * Create a new decoded image
+         *
+         * @param buffer The texture data
+         * @param format The GL pixel format of the data
+         */
+        DecodedImage(ByteBuffer buffer,int format) {
+            this.buffer = buffer;
+            this.format = format;
+        }
+    }
 }
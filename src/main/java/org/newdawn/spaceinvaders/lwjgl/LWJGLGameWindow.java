@@ -39,6 +39,12 @@ public class LWJGLGameWindow implements GameWindow {
 	/** Title of window, we get it before our window is ready, so store it till needed */
 	private String title = GameWindow.TITLE + getClass().getSimpleName();
 	
+	/** The time the display was last updated, which is when LWJGL fetches new key events */
+	private long updateTime;
+	
+	/** The time the oldest key event brought in by the last poll was fetched, 0 if there was none */
+	private long inputTime;
+	
 	/**
 	 * Retrieve access to the texture loader that converts images
 	 * into OpenGL textures. Note, this has been made package level
@@ -151,6 +157,33 @@ public class LWJGLGameWindow implements GameWindow {
 		this.callback = callback;
 	}
 	
+	/**
+	 * Bring the status of the keys up to date with the input received
+	 * since the last poll. LWJGL updates the status of the keys as the
+	 * display is updated, so only the events it fetched are looked at
+	 * to find out when the input arrived. LWJGL's own event times use
+	 * a different clock, so events are timed from the update that
+	 * fetched them.
+	 */
+	public void pollInput() {
+		inputTime = 0;
+		while (Keyboard.next()) {
+			if ((inputTime == 0) && (!Keyboard.isRepeatEvent())) {
+				inputTime = updateTime;
+			}
+		}
+	}
+	
+	/**
+	 * Get the time the oldest key event brought in by the last call to
+	 * pollInput() was received
+	 *
+	 * @return The value of System.nanoTime() when the event was received, 0 if the poll found no new events
+	 */
+	public long getInputTime() {
+		return inputTime;
+	}
+	
 	/**
 	 * Check if a particular key is current pressed.
 	 *
@@ -191,13 +224,22 @@ public class LWJGLGameWindow implements GameWindow {
 			GL11.glMatrixMode(GL11.GL_MODELVIEW);
 			GL11.glLoadIdentity();
 			
+			// upload any sprite images that have been decoded since the
+			// last frame, until then they're drawn transparent
+			textureLoader.uploadPending();
+			
 			// let subsystem paint
 			if (callback != null) {
 				callback.frameRendering();
 			}
 			
-			// update window contents
+			// update window contents, this also fetches new input
 			Display.update();
+			updateTime = System.nanoTime();
+			
+			if (callback != null) {
+				callback.frameShown();
+			}
 			
 			if(Display.isCloseRequested() || Keyboard.isKeyDown(Keyboard.KEY_ESCAPE)) {
 				gameRunning = false;
@@ -5,6 +5,7 @@ import java.io.IOException;
 import org.lwjgl.opengl.GL11;
 
 import org.newdawn.spaceinvaders.Sprite;
+import org.newdawn.spaceinvaders.util.CollisionMask;
 
 /**
  * Implementation of sprite that uses an OpenGL quad and a texture
@@ -71,7 +72,8 @@ public class LWJGLSprite implements Sprite {
 		// store the current model matrix
 		GL11.glPushMatrix();
 		
-		// bind to the appropriate texture for this sprite
+		// bind to the appropriate texture for this sprite, sprites
+		// packed on the same atlas page don't need a rebind
 		texture.bind();
     
 		// translate to the right location and prepare to draw
@@ -79,15 +81,20 @@ public class LWJGLSprite implements Sprite {
     	GL11.glColor3f(1,1,1);
 		
 		// draw a quad textured to match the sprite
+		float u0 = texture.getXOffset();
+		float v0 = texture.getYOffset();
+		float u1 = u0 + texture.getWidth();
+		float v1 = v0 + texture.getHeight();
+		
     	GL11.glBegin(GL11.GL_QUADS);
 		{
-	      GL11.glTexCoord2f(0, 0);
+	      GL11.glTexCoord2f(u0, v0);
 	      GL11.glVertex2f(0, 0);
-	      GL11.glTexCoord2f(0, texture.getHeight());
+	      GL11.glTexCoord2f(u0, v1);
 	      GL11.glVertex2f(0, height);
-	      GL11.glTexCoord2f(texture.getWidth(), texture.getHeight());
+	      GL11.glTexCoord2f(u1, v1);
 	      GL11.glVertex2f(width,height);
-	      GL11.glTexCoord2f(texture.getWidth(), 0);
+	      GL11.glTexCoord2f(u1, v0);
 	      GL11.glVertex2f(width,0);
 		}
 		GL11.glEnd();
@@ -96,4 +103,12 @@ public class LWJGLSprite implements Sprite {
 		GL11.glPopMatrix();
 	}
 	
+	/**
+	 * Get the mask of the opaque pixels of this sprite
+	 * 
+	 * @return The collision mask of this sprite
+	 */
+	public CollisionMask getCollisionMask() {
+		return texture.getCollisionMask();
+	}
 }
\ No newline at end of file
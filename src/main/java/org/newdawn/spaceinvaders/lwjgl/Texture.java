@@ -1,6 +1,9 @@
 package org.newdawn.spaceinvaders.lwjgl;
 
+import java.util.concurrent.CompletableFuture;
+
 import org.lwjgl.opengl.GL11;
+import org.newdawn.spaceinvaders.util.CollisionMask;
 
 /**
  * A texture to be bound within JOGL. This object is responsible for 
@@ -16,6 +19,8 @@ import org.lwjgl.opengl.GL11;
  * @author Brian Matzon
  */
 public class Texture {
+    /** The GL texture ID that is currently bound */
+    private static int boundTextureID = -1;
     /** The GL target type */
     private int target; 
     /** The GL texture ID */
@@ -32,6 +37,18 @@ public class Texture {
     private float widthRatio;
     /** The ratio of the height of the image to the texture */
     private float heightRatio;
+    /** The x location of the image within the texture */
+    private int x;
+    /** The y location of the image within the texture */
+    private int y;
+    /** The x location of the image within the texture in texture coordinates */
+    private float xOffset;
+    /** The y location of the image within the texture in texture coordinates */
+    private float yOffset;
+    /** The mask of the opaque pixels of the image */
+    private CollisionMask collisionMask;
+    /** The decoding of the image on the decoder pool, null if it was decoded when loaded */
+    private CompletableFuture<?> decoding;
     
     /**
      * Create a new texture
@@ -45,12 +62,48 @@ public class Texture {
     }
     
     /**
-     * Bind the specified GL context to a texture
-     *
-     * @param gl The GL context to bind to
+     * Bind the specified GL context to a texture. Nothing is done if the
+     * texture is already bound, which saves rebinding atlas pages for
+     * every sprite.
      */
     public void bind() {
-      GL11.glBindTexture(target, textureID); 
+      if (boundTextureID != textureID) {
+        GL11.glBindTexture(target, textureID); 
+        boundTextureID = textureID;
+      }
+    }
+    
+    /**
+     * Forget which texture is bound, this must be called whenever a
+     * texture has been bound without going through bind()
+     */
+    static void resetBinding() {
+      boundTextureID = -1;
+    }
+    
+    /**
+     * Get the GL texture ID. Textures packed into the same atlas
+     * page share an ID.
+     *
+     * @return The GL texture ID
+     */
+    public int getTextureID() {
+        return textureID;
+    }
+    
+    /**
+     * Set the location of the image within the texture. This is only
+     * needed when the image doesn't fill the texture from its top
+     * left corner, i.e. when its been packed into an atlas.
+     *
+     * @param x The x location of the image in pixels
+     * @param y The y location of the image in pixels
+     */
+    public void setLocation(int x,int y) {
+        this.x = x;
+        this.y = y;
+        setWidth();
+        setHeight();
     }
     
     /**
@@ -109,6 +162,24 @@ public class Texture {
         return widthRatio;
     }
     
+    /**
+     * Get the x location of the image in texture coordinates
+     *
+     * @return The x location of the image within the texture
+     */
+    public float getXOffset() {
+        return xOffset;
+    }
+    
+    /**
+     * Get the y location of the image in texture coordinates
+     *
+     * @return The y location of the image within the texture
+     */
+    public float getYOffset() {
+        return yOffset;
+    }
+    
     /**
      * Set the height of this texture 
      *
@@ -129,6 +200,48 @@ public class Texture {
         setWidth();
     }
     
+    /**
+     * Set the mask of the opaque pixels of the image
+     *
+     * @param collisionMask The mask of the image
+     */
+    public void setCollisionMask(CollisionMask collisionMask) {
+        this.collisionMask = collisionMask;
+    }
+    
+    /**
+     * Set the decoding of the image, which sets the collision mask
+     * once it has finished
+     *
+     * @param decoding The decoding of the image on the decoder pool
+     */
+    void setDecoding(CompletableFuture<?> decoding) {
+        this.decoding = decoding;
+    }
+    
+    /**
+     * Check if the image has been decoded. Until it has been decoded
+     * and uploaded the texture is transparent.
+     *
+     * @return True if the image has been decoded
+     */
+    public boolean isDecoded() {
+        return (decoding == null) || (decoding.isDone());
+    }
+    
+    /**
+     * Get the mask of the opaque pixels of the image. If the image is
+     * still being decoded this waits for the decoding to finish.
+     *
+     * @return The mask of the image, null if it was never set
+     */
+    public CollisionMask getCollisionMask() {
+        if (decoding != null) {
+            decoding.join();
+        }
+        return collisionMask;
+    }
+    
     /**
      * Set the height of the texture. This will update the
      * ratio also.
@@ -136,6 +249,7 @@ public class Texture {
     private void setHeight() {
         if (texHeight != 0) {
             heightRatio = ((float) height)/texHeight;
+            yOffset = ((float) y)/texHeight;
         }
     }
     
@@ -146,6 +260,7 @@ public class Texture {
     private void setWidth() {
         if (texWidth != 0) {
             widthRatio = ((float) width)/texWidth;
+            xOffset = ((float) x)/texWidth;
         }
     }
 }
@@ -0,0 +1,336 @@
+package org.newdawn.spaceinvaders.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Timings for each phase of the frame along with a few counts describing
+ * the state of the game. Phases are timed with System.nanoTime() and kept
+ * in lock free histograms, so the game thread can record while a JMX client
+ * reads the percentiles from another thread.
+ *
+ * The latency of the player's input is kept alongside: the time from a
+ * key event being received to the end of the first frame drawn with a
+ * logic step that acted on it, and to that frame being shown once the
+ * buffers are swapped.
+ *
+ * Once registered the statistics appear under the
+ * <code>org.newdawn.spaceinvaders</code> domain, one bean for the overall
+ * counts, one per phase and one per stage of the input latency. The
+ * latency beans are tagged with the rendering backend, since that is
+ * where most of the difference between backends shows up.
+ */
+public class FrameStats implements FrameStatsMBean {
+	/** The phase spent sleeping between frames */
+	public static final int SLEEP = 0;
+	/** The phase spent moving entities */
+	public static final int MOVE = 1;
+	/** The phase spent drawing entities */
+	public static final int DRAW = 2;
+	/** The phase spent resolving collisions */
+	public static final int COLLISION = 3;
+	/** The phase spent removing dead entities */
+	public static final int REMOVAL = 4;
+	/** The phase spent running entity logic */
+	public static final int LOGIC = 5;
+	/** The phase spent handling the player's input */
+	public static final int INPUT = 6;
+
+	/** The JMX domain the beans are registered under */
+	public static final String DOMAIN = "org.newdawn.spaceinvaders";
+	/** The names of the phases, indexed by phase */
+	private static final String[] PHASE_NAMES = {"sleep","move","draw","collision","removal","logic","input"};
+	/** The backend reported when none has been set */
+	private static final String UNKNOWN_BACKEND = "unknown";
+
+	/** The timings of each phase */
+	private PhaseStats[] phases = new PhaseStats[PHASE_NAMES.length];
+	/** The times from a key event being received to the end of the frame acting on it */
+	private PhaseStats inputToFrame = new PhaseStats("inputToFrame");
+	/** The times from a key event being received to the frame acting on it being shown */
+	private PhaseStats inputToSwap = new PhaseStats("inputToSwap");
+	/** The name of the rendering backend drawing the frames */
+	private String backend = UNKNOWN_BACKEND;
+	/** The number of frames rendered */
+	private volatile long frameCount;
+	/** The number of logic steps run */
+	private volatile long tickCount;
+	/** The number of frames that started after their deadline */
+	private volatile long missedDeadlineCount;
+	/** The number of entities at the end of the last logic step */
+	private volatile int entityCount;
+	/** The number of aliens at the end of the last logic step */
+	private volatile int alienCount;
+	/** The names the beans were registered with, null if not registered */
+	private ObjectName[] names;
+
+	/**
+	 * Create a new, empty set of statistics
+	 */
+	public FrameStats() {
+		for (int i=0;i<phases.length;i++) {
+			phases[i] = new PhaseStats(PHASE_NAMES[i]);
+		}
+	}
+
+	/**
+	 * Record the time taken by one run of a phase
+	 *
+	 * @param phase The phase that was run, e.g. MOVE
+	 * @param nanos The time taken (ns)
+	 */
+	public void record(int phase,long nanos) {
+		phases[phase].record(nanos);
+	}
+
+	/**
+	 * Record the time since a given point as a run of a phase. The
+	 * current time is returned so that the next phase can be timed
+	 * from it.
+	 *
+	 * @param phase The phase that was run, e.g. MOVE
+	 * @param since The value of System.nanoTime() when the phase started
+	 * @return The value of System.nanoTime() when the phase ended
+	 */
+	public long lap(int phase,long since) {
+		long now = System.nanoTime();
+		phases[phase].record(now - since);
+
+		return now;
+	}
+
+	/**
+	 * Get the timings of a phase
+	 *
+	 * @param phase The phase to retrieve, e.g. MOVE
+	 * @return The timings of the phase
+	 */
+	public PhaseStats getPhase(int phase) {
+		return phases[phase];
+	}
+
+	/**
+	 * Get the times from a key event being received to the end of the
+	 * first frame drawn after a logic step acted on it
+	 *
+	 * @return The input to frame latencies
+	 */
+	public PhaseStats getInputToFrame() {
+		return inputToFrame;
+	}
+
+	/**
+	 * Get the times from a key event being received to the first frame
+	 * drawn after a logic step acted on it being shown
+	 *
+	 * @return The input to swap latencies
+	 */
+	public PhaseStats getInputToSwap() {
+		return inputToSwap;
+	}
+
+	/**
+	 * Notification that a frame acting on a key event has been drawn
+	 *
+	 * @param received The value of System.nanoTime() when the key event was received
+	 */
+	public void inputDrawn(long received) {
+		inputToFrame.record(System.nanoTime() - received);
+	}
+
+	/**
+	 * Notification that a frame acting on a key event has been shown
+	 *
+	 * @param received The value of System.nanoTime() when the key event was received
+	 */
+	public void inputShown(long received) {
+		inputToSwap.record(System.nanoTime() - received);
+	}
+
+	/**
+	 * Set the name of the rendering backend drawing the frames. This
+	 * must be set before the statistics are registered to be part of
+	 * the names of the latency beans.
+	 *
+	 * @param backend The name of the backend, e.g. "java2d"
+	 */
+	public void setBackend(String backend) {
+		this.backend = backend;
+	}
+
+	/**
+	 * Get the name of the rendering backend drawing the frames
+	 *
+	 * @return The name of the backend
+	 */
+	public String getBackend() {
+		return backend;
+	}
+
+	/**
+	 * Notification that a frame has been rendered
+	 */
+	public void frameCompleted() {
+		frameCount++;
+	}
+
+	/**
+	 * Notification that a frame started after its deadline
+	 */
+	public void deadlineMissed() {
+		missedDeadlineCount++;
+	}
+
+	/**
+	 * Notification that a logic step has been run
+	 *
+	 * @param entities The number of entities in the game
+	 * @param aliens The number of aliens left
+	 */
+	public void tickCompleted(int entities,int aliens) {
+		tickCount++;
+		entityCount = entities;
+		alienCount = aliens;
+	}
+
+	/**
+	 * Get the number of frames rendered
+	 *
+	 * @return The number of frames rendered
+	 */
+	public long getFrameCount() {
+		return frameCount;
+	}
+
+	/**
+	 * Get the number of logic steps run
+	 *
+	 * @return The number of logic steps run
+	 */
+	public long getTickCount() {
+		return tickCount;
+	}
+
+	/**
+	 * Get the number of frames that started after their deadline
+	 *
+	 * @return The number of missed deadlines
+	 */
+	public long getMissedDeadlineCount() {
+		return missedDeadlineCount;
+	}
+
+	/**
+	 * Get the number of entities in the game at the end of the last logic step
+	 *
+	 * @return The number of entities in the game
+	 */
+	public int getEntityCount() {
+		return entityCount;
+	}
+
+	/**
+	 * Get the number of aliens left at the end of the last logic step
+	 *
+	 * @return The number of aliens left
+	 */
+	public int getAlienCount() {
+		return alienCount;
+	}
+
+	/**
+	 * Get the names of the phases that are timed
+	 *
+	 * @return The names of the phases
+	 */
+	public String[] getPhaseNames() {
+		return PHASE_NAMES.clone();
+	}
+
+	/**
+	 * Throw away the counts and timings recorded so far
+	 */
+	public void reset() {
+		for (int i=0;i<phases.length;i++) {
+			phases[i].reset();
+		}
+		inputToFrame.reset();
+		inputToSwap.reset();
+		frameCount = 0;
+		tickCount = 0;
+		missedDeadlineCount = 0;
+	}
+
+	/**
+	 * Register the statistics with the platform MBean server. Any beans
+	 * already registered with the same name are replaced. Failing to
+	 * register isn't fatal to the game, so problems are only reported.
+	 *
+	 * @param name The name to register the statistics under, e.g. "game"
+	 */
+	public void register(String name) {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+		try {
+			ObjectName[] registered = new ObjectName[phases.length+3];
+			registered[0] = new ObjectName(DOMAIN+":type=FrameStats,name="+name);
+			for (int i=0;i<phases.length;i++) {
+				registered[i+1] = new ObjectName(DOMAIN+":type=FrameStats,name="+name+",phase="+PHASE_NAMES[i]);
+			}
+			registered[phases.length+1] = new ObjectName(DOMAIN+":type=InputLatency,name="+name+",backend="+backend+",stage=frame");
+			registered[phases.length+2] = new ObjectName(DOMAIN+":type=InputLatency,name="+name+",backend="+backend+",stage=swap");
+
+			register(server,registered[0],this);
+			for (int i=0;i<phases.length;i++) {
+				register(server,registered[i+1],phases[i]);
+			}
+			register(server,registered[phases.length+1],inputToFrame);
+			register(server,registered[phases.length+2],inputToSwap);
+			names = registered;
+		} catch (JMException e) {
+			System.err.println("Unable to register frame statistics: "+e);
+		}
+	}
+
+	/**
+	 * Remove the statistics from the platform MBean server
+	 */
+	public void unregister() {
+		if (names == null) {
+			return;
+		}
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		for (int i=0;i<names.length;i++) {
+			try {
+				if (server.isRegistered(names[i])) {
+					server.unregisterMBean(names[i]);
+				}
+			} catch (JMException e) {
+				System.err.println("Unable to unregister frame statistics: "+e);
+			}
+		}
+		names = null;
+	}
+
+	/**
+	 * Register a single bean, replacing any bean already using the name
+	 *
+	 * @param server The server to register with
+	 * @param name The name of the bean
+	 * @param bean The bean to register
+	 * @throws JMException Indicates the bean could not be registered
+	 */
+	private static void register(MBeanServer server,ObjectName name,Object bean) throws JMException {
+		try {
+			server.registerMBean(bean,name);
+		} catch (InstanceAlreadyExistsException e) {
+			server.unregisterMBean(name);
+			server.registerMBean(bean,name);
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package org.newdawn.spaceinvaders.metrics;
+
+/**
+ * The management interface of the overall frame statistics. The timings
+ * of the individual phases of the frame are registered alongside as
+ * their own beans.
+ */
+public interface FrameStatsMBean {
+	/**
+	 * Get the number of frames rendered
+	 *
+	 * @return The number of frames rendered
+	 */
+	public long getFrameCount();
+
+	/**
+	 * Get the number of logic steps run
+	 *
+	 * @return The number of logic steps run
+	 */
+	public long getTickCount();
+
+	/**
+	 * Get the number of frames that started after their deadline
+	 *
+	 * @return The number of missed deadlines
+	 */
+	public long getMissedDeadlineCount();
+
+	/**
+	 * Get the number of entities in the game at the end of the last logic step
+	 *
+	 * @return The number of entities in the game
+	 */
+	public int getEntityCount();
+
+	/**
+	 * Get the number of aliens left at the end of the last logic step
+	 *
+	 * @return The number of aliens left
+	 */
+	public int getAlienCount();
+
+	/**
+	 * Get the name of the rendering backend drawing the frames
+	 *
+	 * @return The name of the backend
+	 */
+	public String getBackend();
+
+	/**
+	 * Get the names of the phases that are timed
+	 *
+	 * @return The names of the phases
+	 */
+	public String[] getPhaseNames();
+
+	/**
+	 * Throw away the counts and timings recorded so far
+	 */
+	public void reset();
+}
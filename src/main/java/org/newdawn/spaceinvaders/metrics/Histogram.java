@@ -0,0 +1,164 @@
+package org.newdawn.spaceinvaders.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of positive long values (normally nanosecond timings) with a
+ * fixed set of buckets. Values below 16 get a bucket each, above that every
+ * power of two is split into 8 buckets, so any value is known to within
+ * 12.5%. The buckets are atomic counters so any number of threads can
+ * record values without locking, and without allocating.
+ */
+public class Histogram {
+	/** The number of bits used to split each power of two */
+	private static final int SUB_BUCKET_BITS = 3;
+	/** The number of buckets each power of two is split into */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	/** The values below this each have a bucket of their own */
+	private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+	/** The total number of buckets, enough to cover every positive long */
+	private static final int BUCKET_COUNT = LINEAR_LIMIT + (63 - (SUB_BUCKET_BITS + 1)) * SUB_BUCKETS;
+
+	/** The number of values recorded in each bucket */
+	private AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+	/** The total of all the values recorded */
+	private AtomicLong total = new AtomicLong();
+	/** The largest value recorded */
+	private AtomicLong max = new AtomicLong();
+
+	/**
+	 * Record a value, negative values are counted as zero
+	 *
+	 * @param value The value to record
+	 */
+	public void record(long value) {
+		if (value < 0) {
+			value = 0;
+		}
+
+		buckets.incrementAndGet(bucketOf(value));
+		total.addAndGet(value);
+
+		long current = max.get();
+		while ((value > current) && (!max.compareAndSet(current,value))) {
+			current = max.get();
+		}
+	}
+
+	/**
+	 * Get the number of values recorded
+	 *
+	 * @return The number of values recorded
+	 */
+	public long getCount() {
+		long count = 0;
+		for (int i=0;i<BUCKET_COUNT;i++) {
+			count += buckets.get(i);
+		}
+
+		return count;
+	}
+
+	/**
+	 * Get the largest value recorded
+	 *
+	 * @return The largest value recorded, or 0 if nothing has been recorded
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Get the mean of the values recorded
+	 *
+	 * @return The mean of the values recorded, or 0 if nothing has been recorded
+	 */
+	public double getMean() {
+		long count = getCount();
+		if (count == 0) {
+			return 0;
+		}
+
+		return (double) total.get() / count;
+	}
+
+	/**
+	 * Get the value that a given fraction of the recorded values are
+	 * less than or equal to. The answer is the top of the bucket the
+	 * percentile falls in, so it errs on the high side.
+	 *
+	 * @param fraction The fraction of values, e.g. 0.99 for the 99th percentile
+	 * @return The value at the percentile, or 0 if nothing has been recorded
+	 */
+	public long getPercentile(double fraction) {
+		// take a copy so the counts add up even while values are recorded
+		long[] counts = new long[BUCKET_COUNT];
+		long count = 0;
+		for (int i=0;i<BUCKET_COUNT;i++) {
+			counts[i] = buckets.get(i);
+			count += counts[i];
+		}
+		if (count == 0) {
+			return 0;
+		}
+
+		long rank = Math.max(1,(long) Math.ceil(fraction * count));
+		long seen = 0;
+		for (int i=0;i<BUCKET_COUNT;i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(upperBoundOf(i),getMax());
+			}
+		}
+
+		return getMax();
+	}
+
+	/**
+	 * Throw away everything recorded so far
+	 */
+	public void reset() {
+		for (int i=0;i<BUCKET_COUNT;i++) {
+			buckets.set(i,0);
+		}
+		total.set(0);
+		max.set(0);
+	}
+
+	/**
+	 * Work out which bucket a value belongs in
+	 *
+	 * @param value The value, which must not be negative
+	 * @return The index of the bucket
+	 */
+	static int bucketOf(long value) {
+		if (value < LINEAR_LIMIT) {
+			return (int) value;
+		}
+
+		int highestBit = 63 - Long.numberOfLeadingZeros(value);
+		int shift = highestBit - SUB_BUCKET_BITS;
+		int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+
+		return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * Get the largest value that falls in a bucket
+	 *
+	 * @param bucket The index of the bucket
+	 * @return The largest value that would be recorded in the bucket
+	 */
+	static long upperBoundOf(int bucket) {
+		if (bucket < LINEAR_LIMIT) {
+			return bucket;
+		}
+
+		int shift = ((bucket - LINEAR_LIMIT) / SUB_BUCKETS) + 1;
+		long subBucket = (bucket - LINEAR_LIMIT) % SUB_BUCKETS;
+		long lower = (SUB_BUCKETS + subBucket) << shift;
+
+		return lower + (1L << shift) - 1;
+	}
+}
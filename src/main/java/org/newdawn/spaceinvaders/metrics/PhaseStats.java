@@ -0,0 +1,91 @@
+package org.newdawn.spaceinvaders.metrics;
+
+/**
+ * The timings of one phase of the frame, kept in a histogram. The same
+ * is used for each stage of the input latency.
+ */
+public class PhaseStats implements PhaseStatsMBean {
+	/** The name of the phase */
+	private String name;
+	/** The timings recorded for the phase */
+	private Histogram histogram = new Histogram();
+
+	/**
+	 * Create a new, empty set of timings
+	 *
+	 * @param name The name of the phase
+	 */
+	public PhaseStats(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Get the name of the phase
+	 *
+	 * @return The name of the phase
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Record the time taken by one run of the phase
+	 *
+	 * @param nanos The time taken (ns)
+	 */
+	public void record(long nanos) {
+		histogram.record(nanos);
+	}
+
+	/**
+	 * Get the number of times the phase has been timed
+	 *
+	 * @return The number of timings recorded
+	 */
+	public long getCount() {
+		return histogram.getCount();
+	}
+
+	/**
+	 * Get the median time taken by the phase
+	 *
+	 * @return The 50th percentile of the timings (ns)
+	 */
+	public long getP50() {
+		return histogram.getPercentile(0.5);
+	}
+
+	/**
+	 * Get the time that 99% of runs of the phase stay under
+	 *
+	 * @return The 99th percentile of the timings (ns)
+	 */
+	public long getP99() {
+		return histogram.getPercentile(0.99);
+	}
+
+	/**
+	 * Get the longest time taken by the phase
+	 *
+	 * @return The largest timing (ns)
+	 */
+	public long getMax() {
+		return histogram.getMax();
+	}
+
+	/**
+	 * Get the average time taken by the phase
+	 *
+	 * @return The mean of the timings (ns)
+	 */
+	public double getMean() {
+		return histogram.getMean();
+	}
+
+	/**
+	 * Throw away the timings recorded so far
+	 */
+	public void reset() {
+		histogram.reset();
+	}
+}
@@ -0,0 +1,47 @@
+package org.newdawn.spaceinvaders.metrics;
+
+/**
+ * The management interface of the timings of one phase of the frame. All
+ * times are in nanoseconds.
+ */
+public interface PhaseStatsMBean {
+	/**
+	 * Get the number of times the phase has been timed
+	 *
+	 * @return The number of timings recorded
+	 */
+	public long getCount();
+
+	/**
+	 * Get the median time taken by the phase
+	 *
+	 * @return The 50th percentile of the timings (ns)
+	 */
+	public long getP50();
+
+	/**
+	 * Get the time that 99% of runs of the phase stay under
+	 *
+	 * @return The 99th percentile of the timings (ns)
+	 */
+	public long getP99();
+
+	/**
+	 * Get the longest time taken by the phase
+	 *
+	 * @return The largest timing (ns)
+	 */
+	public long getMax();
+
+	/**
+	 * Get the average time taken by the phase
+	 *
+	 * @return The mean of the timings (ns)
+	 */
+	public double getMean();
+
+	/**
+	 * Throw away the timings recorded so far
+	 */
+	public void reset();
+}
@@ -0,0 +1,112 @@
+package org.newdawn.spaceinvaders.util;
+
+/**
+ * Works out where images should be placed on a single page of a texture
+ * atlas. Images are placed left to right on shelves, a new shelf is
+ * started below the tallest image of the current one when an image
+ * doesn't fit. This is not the tightest packing there is but sprites
+ * tend to come in a few sizes, which shelves suit well.
+ *
+ * The packer only does the arithmetic, its up to the texture loaders
+ * to copy the images into the page.
+ */
+public class AtlasPacker {
+	/** The width of the page */
+	private int width;
+	/** The height of the page */
+	private int height;
+	/** The space to leave around each image so filtering doesn't bleed between them */
+	private int padding;
+	/** The x location at which the next image on the current shelf goes */
+	private int shelfX;
+	/** The y location of the top of the current shelf */
+	private int shelfY;
+	/** The height of the tallest image on the current shelf */
+	private int shelfHeight;
+	/** The x location of the last image placed */
+	private int lastX;
+	/** The y location of the last image placed */
+	private int lastY;
+
+	/**
+	 * Create a packer for an empty page
+	 *
+	 * @param width The width of the page
+	 * @param height The height of the page
+	 * @param padding The space to leave around each image
+	 */
+	public AtlasPacker(int width,int height,int padding) {
+		this.width = width;
+		this.height = height;
+		this.padding = padding;
+	}
+
+	/**
+	 * Find a place for an image on the page
+	 *
+	 * @param imageWidth The width of the image
+	 * @param imageHeight The height of the image
+	 * @return True if the image has been placed, false if the page is full
+	 */
+	public boolean place(int imageWidth,int imageHeight) {
+		int w = imageWidth + padding;
+		int h = imageHeight + padding;
+
+		if (w > width) {
+			return false;
+		}
+
+		// start a new shelf if we've run out of room on this one
+		if (shelfX + w > width) {
+			shelfY += shelfHeight;
+			shelfX = 0;
+			shelfHeight = 0;
+		}
+		if (shelfY + h > height) {
+			return false;
+		}
+
+		lastX = shelfX;
+		lastY = shelfY;
+		shelfX += w;
+		shelfHeight = Math.max(shelfHeight,h);
+
+		return true;
+	}
+
+	/**
+	 * Get the x location of the last image placed
+	 *
+	 * @return The x location in pixels on the page
+	 */
+	public int getX() {
+		return lastX;
+	}
+
+	/**
+	 * Get the y location of the last image placed
+	 *
+	 * @return The y location in pixels on the page
+	 */
+	public int getY() {
+		return lastY;
+	}
+
+	/**
+	 * Get the width of the page
+	 *
+	 * @return The width of the page in pixels
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Get the height of the page
+	 *
+	 * @return The height of the page in pixels
+	 */
+	public int getHeight() {
+		return height;
+	}
+}
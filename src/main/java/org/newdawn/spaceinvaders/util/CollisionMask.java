@@ -0,0 +1,192 @@
+package org.newdawn.spaceinvaders.util;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+
+/**
+ * A record of which pixels of an image are opaque, packed one bit per
+ * pixel into longs. Each row starts on a new long, the lowest bit of the
+ * first long being the leftmost pixel. Masks are built once when an image
+ * is loaded and can then be tested against each other with a few word
+ * operations per row, which is cheap enough to run on every pair of
+ * entities whose bounds overlap.
+ */
+public class CollisionMask {
+	/** The width of the mask in pixels */
+	private int width;
+	/** The height of the mask in pixels */
+	private int height;
+	/** The number of longs used for each row */
+	private int wordsPerRow;
+	/** The bits of each row, one after the other */
+	private long[] bits;
+
+	/**
+	 * Create a new, empty mask
+	 *
+	 * @param width The width of the mask in pixels
+	 * @param height The height of the mask in pixels
+	 */
+	public CollisionMask(int width,int height) {
+		this.width = width;
+		this.height = height;
+		this.wordsPerRow = (width + 63) >>> 6;
+		this.bits = new long[wordsPerRow * height];
+	}
+
+	/**
+	 * Build a mask from the alpha channel of an image, any pixel that isn't
+	 * completely transparent counts as solid. Images without an alpha
+	 * channel give a solid mask.
+	 *
+	 * @param image The image to build the mask from
+	 * @return The mask of the image
+	 */
+	public static CollisionMask fromImage(BufferedImage image) {
+		CollisionMask mask = new CollisionMask(image.getWidth(),image.getHeight());
+
+		for (int y=0;y<mask.height;y++) {
+			for (int x=0;x<mask.width;x++) {
+				if ((image.getRGB(x,y) >>> 24) != 0) {
+					mask.set(x,y);
+				}
+			}
+		}
+
+		return mask;
+	}
+
+	/**
+	 * Build a mask from the alpha of RGBA texture data, any pixel that
+	 * isn't completely transparent counts as solid.
+	 *
+	 * @param data The texture data, four bytes per pixel in RGBA order
+	 * @param width The width of the image in pixels
+	 * @param height The height of the image in pixels
+	 * @param stride The width of a row of the texture data in pixels
+	 * @return The mask of the image
+	 */
+	public static CollisionMask fromRGBA(ByteBuffer data,int width,int height,int stride) {
+		CollisionMask mask = new CollisionMask(width,height);
+
+		for (int y=0;y<height;y++) {
+			for (int x=0;x<width;x++) {
+				if (data.get(((y * stride) + x) * 4 + 3) != 0) {
+					mask.set(x,y);
+				}
+			}
+		}
+
+		return mask;
+	}
+
+	/**
+	 * Build a mask where every pixel is solid, for images where nothing
+	 * better is known.
+	 *
+	 * @param width The width of the mask in pixels
+	 * @param height The height of the mask in pixels
+	 * @return The solid mask
+	 */
+	public static CollisionMask solid(int width,int height) {
+		CollisionMask mask = new CollisionMask(width,height);
+
+		for (int y=0;y<height;y++) {
+			for (int x=0;x<width;x++) {
+				mask.set(x,y);
+			}
+		}
+
+		return mask;
+	}
+
+	/**
+	 * Get the width of the mask
+	 *
+	 * @return The width of the mask in pixels
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Get the height of the mask
+	 *
+	 * @return The height of the mask in pixels
+	 */
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * Mark a pixel as solid
+	 *
+	 * @param x The x location of the pixel
+	 * @param y The y location of the pixel
+	 */
+	public void set(int x,int y) {
+		bits[(y * wordsPerRow) + (x >>> 6)] |= 1L << (x & 63);
+	}
+
+	/**
+	 * Check if a pixel is solid
+	 *
+	 * @param x The x location of the pixel
+	 * @param y The y location of the pixel
+	 * @return True if the pixel is solid
+	 */
+	public boolean isSet(int x,int y) {
+		if ((x < 0) || (y < 0) || (x >= width) || (y >= height)) {
+			return false;
+		}
+
+		return (bits[(y * wordsPerRow) + (x >>> 6)] & (1L << (x & 63))) != 0;
+	}
+
+	/**
+	 * Check if any solid pixel of this mask lies over a solid pixel of
+	 * another mask.
+	 *
+	 * @param other The other mask
+	 * @param dx The x location of the other mask relative to this one
+	 * @param dy The y location of the other mask relative to this one
+	 * @return True if the masks overlap
+	 */
+	public boolean overlaps(CollisionMask other,int dx,int dy) {
+		// only ever shift the other mask to the right
+		if (dx < 0) {
+			return other.overlaps(this,-dx,-dy);
+		}
+
+		int firstRow = Math.max(0,dy);
+		int lastRow = Math.min(height,dy + other.height);
+		int firstWord = dx >>> 6;
+		int lastWord = Math.min(wordsPerRow,((dx + other.width - 1) >>> 6) + 1);
+		int wordShift = dx >>> 6;
+		int bitShift = dx & 63;
+
+		for (int y=firstRow;y<lastRow;y++) {
+			int row = y * wordsPerRow;
+			int otherRow = (y - dy) * other.wordsPerRow;
+
+			for (int w=firstWord;w<lastWord;w++) {
+				// the word of the other row that lands on this one,
+				// plus the spill over from the word before it
+				int source = w - wordShift;
+				long shifted = 0;
+				if (source < other.wordsPerRow) {
+					shifted = other.bits[otherRow + source] << bitShift;
+				}
+				if ((bitShift != 0) && (source > 0)) {
+					shifted |= other.bits[otherRow + source - 1] >>> (64 - bitShift);
+				}
+
+				if ((bits[row + w] & shifted) != 0) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+}
@@ -0,0 +1,44 @@
+package org.newdawn.spaceinvaders.util;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The pool of threads the texture loaders decode images on. Decoding an
+ * image and converting it into texture data doesn't need OpenGL, so it
+ * is done here while the GL thread carries on drawing. The GL thread
+ * then only has to upload the finished texture data.
+ *
+ * The pool has a thread per processor unless told otherwise with the
+ * <code>spaceinvaders.texturethreads</code> property, 0 turns it off
+ * and images are decoded on the GL thread as they are asked for.
+ */
+public class DecoderPool {
+	/** The number of threads decoding images, 0 if images aren't decoded off the GL thread */
+	private static final int THREADS = Integer.getInteger("spaceinvaders.texturethreads",Runtime.getRuntime().availableProcessors());
+
+	/** The executor running the decoding, created when first needed */
+	private static ExecutorService executor;
+
+	/**
+	 * Get the executor to decode images on
+	 *
+	 * @return The executor to decode images on, null if images should be decoded on the GL thread
+	 */
+	public static synchronized Executor getExecutor() {
+		if (THREADS <= 0) {
+			return null;
+		}
+
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(THREADS,runnable -> {
+				Thread thread = new Thread(runnable,"Image decoder");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+
+		return executor;
+	}
+}
@@ -0,0 +1,91 @@
+package org.newdawn.spaceinvaders.util;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The header of a GIF image. Only the signature and the logical screen
+ * descriptor are read which is enough to find out how big an image is
+ * without decoding any of its pixels.
+ */
+public class GifHeader {
+	/** The width of the image */
+	private int width;
+	/** The height of the image */
+	private int height;
+
+	/**
+	 * Create a new header
+	 *
+	 * @param width The width of the image
+	 * @param height The height of the image
+	 */
+	private GifHeader(int width,int height) {
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * Read the header of a GIF image found on the classpath
+	 *
+	 * @param ref The reference to the image to read
+	 * @return The header of the image
+	 * @throws IOException Indicates a failure to find or read the resource
+	 */
+	public static GifHeader read(String ref) throws IOException {
+		InputStream in = GifHeader.class.getClassLoader().getResourceAsStream(ref);
+
+		if (in == null) {
+			throw new IOException("Cannot find: "+ref);
+		}
+
+		try {
+			return read(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Read the header of a GIF image from a stream
+	 *
+	 * @param in The stream to read the header from
+	 * @return The header of the image
+	 * @throws IOException Indicates a failure to read the stream or that it isn't a GIF
+	 */
+	public static GifHeader read(InputStream in) throws IOException {
+		byte[] header = new byte[10];
+		new DataInputStream(in).readFully(header);
+
+		// the signature is either GIF87a or GIF89a
+		if ((header[0] != 'G') || (header[1] != 'I') || (header[2] != 'F')) {
+			throw new IOException("Not a GIF image");
+		}
+
+		// the logical screen size follows the signature as two
+		// little endian unsigned shorts
+		int width = (header[6] & 0xff) | ((header[7] & 0xff) << 8);
+		int height = (header[8] & 0xff) | ((header[9] & 0xff) << 8);
+
+		return new GifHeader(width,height);
+	}
+
+	/**
+	 * Get the width of the image
+	 *
+	 * @return The width of the image in pixels
+	 */
+	public int getWidth() {
+		return width;
+	}
+
+	/**
+	 * Get the height of the image
+	 *
+	 * @return The height of the image in pixels
+	 */
+	public int getHeight() {
+		return height;
+	}
+}
@@ -0,0 +1,120 @@
+package org.newdawn.spaceinvaders.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A queue of timestamped key events, passed from the thread receiving
+ * them (e.g. the AWT event thread) to the thread running the game. The
+ * queue is a fixed ring of slots with no locks: the receiving thread only
+ * ever moves the head on and the game thread only ever moves the tail on,
+ * each publishing its position with an ordered write. Events are never
+ * merged, so a press and release that both arrive between two polls are
+ * both seen.
+ *
+ * There must only ever be one thread offering events and one thread
+ * draining them.
+ */
+public class KeyEventQueue {
+	/** The bit set in a stored event when the key was pressed rather than released */
+	private static final int PRESSED = 1 << 31;
+
+	/**
+	 * Notification of the events drained from the queue
+	 */
+	public interface Handler {
+		/**
+		 * Notification of a single key event
+		 *
+		 * @param keyCode The code of the key (defined in KeyEvent)
+		 * @param pressed True if the key was pressed, false if it was released
+		 * @param time The time the event was received (System.nanoTime())
+		 */
+		public void keyEvent(int keyCode,boolean pressed,long time);
+	}
+
+	/** The key code and pressed bit of each slot */
+	private int[] events;
+	/** The time each slot's event was received */
+	private long[] times;
+	/** The mask turning a position into a slot */
+	private int mask;
+	/** The position of the next event to be offered, only moved on by the offering thread */
+	private AtomicLong head = new AtomicLong();
+	/** The position of the next event to be drained, only moved on by the draining thread */
+	private AtomicLong tail = new AtomicLong();
+	/** The last tail seen by the offering thread, saves reading the tail for every event */
+	private long cachedTail;
+	/** The number of events that didn't fit in the queue */
+	private volatile long dropped;
+
+	/**
+	 * Create a new, empty queue
+	 *
+	 * @param capacity The number of events the queue can hold, rounded up to a power of two
+	 */
+	public KeyEventQueue(int capacity) {
+		int size = Integer.highestOneBit(Math.max(2,capacity) - 1) << 1;
+
+		events = new int[size];
+		times = new long[size];
+		mask = size - 1;
+	}
+
+	/**
+	 * Add an event to the queue. Only to be called from the offering thread.
+	 *
+	 * @param keyCode The code of the key (defined in KeyEvent)
+	 * @param pressed True if the key was pressed, false if it was released
+	 * @param time The time the event was received (System.nanoTime())
+	 * @return True if the event was added, false if the queue was full and it was dropped
+	 */
+	public boolean offer(int keyCode,boolean pressed,long time) {
+		long position = head.get();
+
+		if (position - cachedTail > mask) {
+			cachedTail = tail.get();
+			if (position - cachedTail > mask) {
+				dropped++;
+				return false;
+			}
+		}
+
+		int slot = (int) position & mask;
+		events[slot] = pressed ? (keyCode | PRESSED) : keyCode;
+		times[slot] = time;
+		head.lazySet(position + 1);
+
+		return true;
+	}
+
+	/**
+	 * Pass every event in the queue to a handler, oldest first, and remove
+	 * them. Only to be called from the draining thread.
+	 *
+	 * @param handler The handler to notify of each event
+	 * @return The number of events drained
+	 */
+	public int drain(Handler handler) {
+		long position = tail.get();
+		long end = head.get();
+
+		for (long i=position;i<end;i++) {
+			int slot = (int) i & mask;
+			int event = events[slot];
+
+			handler.keyEvent(event & ~PRESSED,(event & PRESSED) != 0,times[slot]);
+		}
+		tail.lazySet(end);
+
+		return (int) (end - position);
+	}
+
+	/**
+	 * Get the number of events that were dropped because the queue was full
+	 *
+	 * @return The number of dropped events
+	 */
+	public long getDroppedCount() {
+		return dropped;
+	}
+}
@@ -9,48 +9,138 @@ import java.awt.event.KeyEvent;
 
 /**
  * A pollable keyboard system, place holder until something generic
- * comes along
+ * comes along. Each game window has a keyboard of its own, so several
+ * games in one process don't share key presses.
+ * 
+ * Key events are passed from the AWT event thread to the game through a
+ * lock free queue, and the game brings the state of the keys up to date
+ * by calling poll() once per logic step. A key counts as pressed for a
+ * poll if it was held at any point since the poll before, so a quick tap
+ * that is pressed and released between two polls is never lost.
+ *
+ * At most 1024 events can wait between two polls. Past that the newest
+ * events are dropped, not the oldest, and counted in getDroppedCount().
+ * The keys then keep the state the events that fitted left them in, so
+ * a key whose release was dropped stays pressed until its next event
+ * arrives. At one poll per logic step this only happens when the game
+ * stops polling for a long time, e.g. while it is being debugged.
  *
  * @author Kevin Glass
  */
 public class Keyboard {
-	/** The status of the keys on the keyboard */
-    private static boolean[] keys = new boolean[1024];
+	/** The number of key events that can be waiting between polls */
+	private static final int QUEUE_SIZE = 1024;
+	
+	/** The key events waiting to be applied by the next poll */
+	private KeyEventQueue queue = new KeyEventQueue(QUEUE_SIZE);
+	/** The status of the keys on the keyboard, as of the last poll */
+    private boolean[] keys = new boolean[1024];
+    /** True for each key that was held at some point between the last two polls */
+    private boolean[] heldSincePoll = new boolean[1024];
+    /** The keys marked in heldSincePoll, so they can be cleared quickly */
+    private int[] marked = new int[QUEUE_SIZE];
+    /** The number of keys marked in heldSincePoll */
+    private int markedCount;
+    /** The time the oldest event applied by the last poll was received, 0 if there was none */
+    private long eventTime;
+    /** The handler applying the events drained from the queue */
+    private KeyEventQueue.Handler applier = this::apply;
     
     /**
-     * Initialise the central keyboard handler
+     * Initialise the keyboard handler to listen to every key event
+     * in the process
      */
-    public static void init() {
+    public void init() {
         Toolkit.getDefaultToolkit().addAWTEventListener(new KeyHandler(),AWTEvent.KEY_EVENT_MASK);         
     }
     
     /**
-     * Initialise the central keyboard handler
+     * Initialise the keyboard handler
      * 
      * @param c The component that we will listen to
      */
-    public static void init(Component c) {
+    public void init(Component c) {
     	c.addKeyListener(new KeyHandler());         
     }
     
     /**
-     * Check if a specified key is pressed
+     * Bring the status of the keys up to date with the events received
+     * since the last poll. Only to be called from the thread running the game.
+     */
+    public void poll() {
+    	for (int i=0;i<markedCount;i++) {
+    		heldSincePoll[marked[i]] = false;
+    	}
+    	markedCount = 0;
+    	
+    	eventTime = 0;
+    	queue.drain(applier);
+    }
+    
+    /**
+     * Get the time the oldest event applied by the last poll was received.
+     * Events repeating the current status of a key are not counted.
+     * 
+     * @return The value of System.nanoTime() when the event was received, 0 if there was none
+     */
+    public long getEventTime() {
+    	return eventTime;
+    }
+    
+    /**
+     * Check if a specified key is pressed, as of the last poll
      * 
      * @param key The code of the key to check (defined in KeyEvent)
-     * @return True if the key is pressed
+     * @return True if the key is pressed, or was held at some point since the poll before
      */
-    public static boolean isPressed(int key) {
-        return keys[key];
+    public boolean isPressed(int key) {
+        return keys[key] || heldSincePoll[key];
     }
     
     /**
-     * Set the status of the key
+     * Set the status of the key, as if an event had been received. Only
+     * to be called from the thread receiving key events. If the queue is
+     * already full the event is dropped.
      * 
      * @param key The code of the key to set
      * @param pressed The new status of the key
      */
-    public static void setPressed(int key,boolean pressed) {
-        keys[key] = pressed;
+    public void setPressed(int key,boolean pressed) {
+        queue.offer(key,pressed,System.nanoTime());
+    }
+    
+    /**
+     * Get the number of key events dropped because too many arrived between polls
+     * 
+     * @return The number of dropped events
+     */
+    public long getDroppedCount() {
+    	return queue.getDroppedCount();
+    }
+    
+    /**
+     * Apply a key event drained from the queue
+     * 
+     * @param key The code of the key (defined in KeyEvent)
+     * @param pressed True if the key was pressed, false if it was released
+     * @param time The time the event was received (System.nanoTime())
+     */
+    private void apply(int key,boolean pressed,long time) {
+    	if ((key < 0) || (key >= keys.length)) {
+    		return;
+    	}
+    	
+    	// a key is held up to the moment it's released, so releasing a key
+    	// marks it as held too. This also covers the release and press pairs
+    	// sent while a key auto repeats
+    	if ((eventTime == 0) && (keys[key] != pressed)) {
+    		eventTime = time;
+    	}
+    	keys[key] = pressed;
+    	if ((!heldSincePoll[key]) && (markedCount < marked.length)) {
+    		heldSincePoll[key] = true;
+    		marked[markedCount++] = key;
+    	}
     }
     
     /**
@@ -58,7 +148,7 @@ public class Keyboard {
      * 
      * @author Kevin Glass
      */
-    private static class KeyHandler extends KeyAdapter implements AWTEventListener {
+    private class KeyHandler extends KeyAdapter implements AWTEventListener {
         /**
          * Notification of a key press
          * 
@@ -68,7 +158,7 @@ public class Keyboard {
         	if (e.isConsumed()) {
         		return;
         	}
-            keys[e.getKeyCode()] = true;
+            setPressed(e.getKeyCode(),true);
         }
         
         /**
@@ -80,13 +170,7 @@ public class Keyboard {
         	if (e.isConsumed()) {
         		return;
         	}
-        	
-        	KeyEvent nextPress = (KeyEvent) Toolkit.getDefaultToolkit().getSystemEventQueue().peekEvent(KeyEvent.KEY_PRESSED);
-        	
-        	if ((nextPress == null) || (nextPress.getWhen() != e.getWhen())) {
-        		keys[e.getKeyCode()] = false;
-        	}
-        	
+        	setPressed(e.getKeyCode(),false);
         }
         
         /**
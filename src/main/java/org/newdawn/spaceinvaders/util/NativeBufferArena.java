@@ -0,0 +1,252 @@
+package org.newdawn.spaceinvaders.util;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * A pool of direct buffers for staging data handed to OpenGL. Direct
+ * buffers are expensive to allocate and their native memory is only
+ * freed once the garbage collector gets round to them, so loading a batch
+ * of textures with a fresh buffer each leaves native memory behind until
+ * a full collection. The arena hands out buffers from a pool instead and
+ * takes them back once the upload is done, so native memory stays at the
+ * most needed at once.
+ *
+ * Buffers are pooled by size, each size class being a power of two. A
+ * buffer handed out has the capacity of its class, its limit set to the
+ * size asked for and native byte order. Buffers may be acquired and
+ * released from any thread.
+ *
+ * The shared arena is registered over JMX as
+ * <code>org.newdawn.spaceinvaders:type=NativeMemory</code>.
+ */
+public class NativeBufferArena implements NativeBufferArenaMBean {
+	/** The size of the smallest size class (bytes) */
+	private static final int MIN_SIZE = 64;
+	/** The number of size classes, the largest holding 1GB buffers */
+	private static final int CLASSES = 25;
+	/** The zeros used to clear buffers */
+	private static final byte[] ZEROS = new byte[4096];
+
+	/** The arena shared by the texture loaders */
+	private static NativeBufferArena shared;
+
+	/** The buffers that aren't in use, indexed by size class */
+	private ArrayDeque<ByteBuffer>[] pools;
+	/** The native memory held by the arena (bytes) */
+	private long allocatedBytes;
+	/** The native memory handed out (bytes) */
+	private long inUseBytes;
+	/** The most native memory handed out at once (bytes) */
+	private long highWaterBytes;
+	/** The number of buffers allocated */
+	private long allocationCount;
+	/** The number of buffers reused */
+	private long reuseCount;
+
+	/**
+	 * Create a new, empty arena
+	 */
+	@SuppressWarnings({"unchecked","rawtypes"})
+	public NativeBufferArena() {
+		pools = new ArrayDeque[CLASSES];
+		for (int i=0;i<CLASSES;i++) {
+			pools[i] = new ArrayDeque<>();
+		}
+	}
+
+	/**
+	 * Get the arena shared by the texture loaders, registering it over
+	 * JMX the first time its asked for
+	 *
+	 * @return The shared arena
+	 */
+	public static synchronized NativeBufferArena get() {
+		if (shared == null) {
+			shared = new NativeBufferArena();
+			shared.register();
+		}
+
+		return shared;
+	}
+
+	/**
+	 * Register the arena with the platform MBean server. Failing to
+	 * register isn't fatal, so problems are only reported.
+	 */
+	private void register() {
+		try {
+			ObjectName name = new ObjectName("org.newdawn.spaceinvaders:type=NativeMemory");
+			try {
+				ManagementFactory.getPlatformMBeanServer().registerMBean(this,name);
+			} catch (InstanceAlreadyExistsException e) {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+				ManagementFactory.getPlatformMBeanServer().registerMBean(this,name);
+			}
+		} catch (JMException e) {
+			System.err.println("Unable to register native memory statistics: "+e);
+		}
+	}
+
+	/**
+	 * Get the size class of a buffer size
+	 *
+	 * @param size The size of buffer needed (bytes)
+	 * @return The index of the smallest size class holding the size
+	 */
+	private static int getSizeClass(int size) {
+		if (size <= MIN_SIZE) {
+			return 0;
+		}
+
+		return 32 - Integer.numberOfLeadingZeros(size - 1) - 6;
+	}
+
+	/**
+	 * Get a buffer from the arena. The contents of the buffer are
+	 * whatever it was last used for.
+	 *
+	 * @param size The number of bytes needed
+	 * @return A direct buffer with its limit at the size asked for
+	 */
+	public ByteBuffer acquire(int size) {
+		int sizeClass = getSizeClass(size);
+		if (sizeClass >= CLASSES) {
+			throw new IllegalArgumentException("Buffer too large for the arena: "+size);
+		}
+
+		ByteBuffer buffer;
+		synchronized (this) {
+			buffer = pools[sizeClass].poll();
+			if (buffer != null) {
+				reuseCount++;
+			} else {
+				allocationCount++;
+				allocatedBytes += MIN_SIZE << sizeClass;
+			}
+			inUseBytes += MIN_SIZE << sizeClass;
+			highWaterBytes = Math.max(highWaterBytes,inUseBytes);
+		}
+
+		if (buffer == null) {
+			buffer = ByteBuffer.allocateDirect(MIN_SIZE << sizeClass);
+			buffer.order(ByteOrder.nativeOrder());
+		}
+		buffer.clear();
+		buffer.limit(size);
+
+		return buffer;
+	}
+
+	/**
+	 * Get a buffer from the arena filled with zeros
+	 *
+	 * @param size The number of bytes needed
+	 * @return A direct buffer of zeros with its limit at the size asked for
+	 */
+	public ByteBuffer acquireZeroed(int size) {
+		ByteBuffer buffer = acquire(size);
+
+		while (buffer.hasRemaining()) {
+			buffer.put(ZEROS,0,Math.min(ZEROS.length,buffer.remaining()));
+		}
+		buffer.flip();
+
+		return buffer;
+	}
+
+	/**
+	 * Give a buffer back to the arena once it's no longer needed. The
+	 * buffer mustn't be used after its been released.
+	 *
+	 * @param buffer The buffer, as handed out by acquire()
+	 */
+	public void release(ByteBuffer buffer) {
+		int sizeClass = getSizeClass(buffer.capacity());
+
+		synchronized (this) {
+			pools[sizeClass].push(buffer);
+			inUseBytes -= buffer.capacity();
+		}
+	}
+
+	/**
+	 * Release the pooled buffers that aren't in use, leaving their memory
+	 * to be freed when they are collected
+	 */
+	public synchronized void trim() {
+		for (int i=0;i<CLASSES;i++) {
+			allocatedBytes -= (long) pools[i].size() * (MIN_SIZE << i);
+			pools[i].clear();
+		}
+	}
+
+	/**
+	 * Get the native memory held by the arena, whether in use or pooled
+	 *
+	 * @return The number of bytes allocated by the arena
+	 */
+	public synchronized long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	/**
+	 * Get the native memory currently handed out by the arena
+	 *
+	 * @return The number of bytes in use
+	 */
+	public synchronized long getInUseBytes() {
+		return inUseBytes;
+	}
+
+	/**
+	 * Get the most native memory the arena has had handed out at once
+	 *
+	 * @return The high-water mark of the bytes in use
+	 */
+	public synchronized long getHighWaterBytes() {
+		return highWaterBytes;
+	}
+
+	/**
+	 * Get the number of buffers the arena has had to allocate
+	 *
+	 * @return The number of buffers allocated
+	 */
+	public synchronized long getAllocationCount() {
+		return allocationCount;
+	}
+
+	/**
+	 * Get the number of times a pooled buffer was handed out again
+	 * rather than allocating a new one
+	 *
+	 * @return The number of buffers reused
+	 */
+	public synchronized long getReuseCount() {
+		return reuseCount;
+	}
+
+	/**
+	 * Get the native memory used by all direct buffers in the JVM,
+	 * including those not allocated through the arena
+	 *
+	 * @return The number of bytes used by direct buffers, -1 if it isn't known
+	 */
+	public long getDirectMemoryUsed() {
+		for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+			if ("direct".equals(pool.getName())) {
+				return pool.getMemoryUsed();
+			}
+		}
+
+		return -1;
+	}
+}
@@ -0,0 +1,57 @@
+package org.newdawn.spaceinvaders.util;
+
+/**
+ * The management interface of the native buffer arena, reporting how much
+ * native memory the arena holds and how much of it is in use.
+ */
+public interface NativeBufferArenaMBean {
+	/**
+	 * Get the native memory held by the arena, whether in use or pooled
+	 *
+	 * @return The number of bytes allocated by the arena
+	 */
+	public long getAllocatedBytes();
+
+	/**
+	 * Get the native memory currently handed out by the arena
+	 *
+	 * @return The number of bytes in use
+	 */
+	public long getInUseBytes();
+
+	/**
+	 * Get the most native memory the arena has had handed out at once
+	 *
+	 * @return The high-water mark of the bytes in use
+	 */
+	public long getHighWaterBytes();
+
+	/**
+	 * Get the number of buffers the arena has had to allocate
+	 *
+	 * @return The number of buffers allocated
+	 */
+	public long getAllocationCount();
+
+	/**
+	 * Get the number of times a pooled buffer was handed out again
+	 * rather than allocating a new one
+	 *
+	 * @return The number of buffers reused
+	 */
+	public long getReuseCount();
+
+	/**
+	 * Get the native memory used by all direct buffers in the JVM,
+	 * including those not allocated through the arena
+	 *
+	 * @return The number of bytes used by direct buffers, -1 if it isn't known
+	 */
+	public long getDirectMemoryUsed();
+
+	/**
+	 * Release the pooled buffers that aren't in use, leaving their memory
+	 * to be freed when they are collected
+	 */
+	public void trim();
+}
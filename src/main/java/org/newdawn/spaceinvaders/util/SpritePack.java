@@ -0,0 +1,242 @@
+package org.newdawn.spaceinvaders.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+
+/**
+ * The sprite images packed at build time (see SpritePacker) into a single
+ * file of texture data that is ready to upload. The file is memory mapped
+ * and each image is handed out as a slice of the mapping, so loading a
+ * sprite decodes nothing and copies nothing. OpenGL reads the pixels
+ * straight from the mapped pages.
+ *
+ * The pack starts with an index, followed by the RGBA data of each image
+ * padded out to a power of two in each direction:
+ * <pre>
+ * int magic, int version, int count
+ * count times: short length, name (UTF-8), int width, int height,
+ *              int texture width, int texture height, int offset
+ * </pre>
+ * The offset of each image is from the start of the file.
+ */
+public class SpritePack {
+	/** The classpath location of the pack built with the game */
+	public static final String RESOURCE = "sprites/sprites.pack";
+	/** The value identifying a sprite pack, "SPCK" */
+	public static final int MAGIC = 0x5350434b;
+	/** The version of the pack format */
+	public static final int VERSION = 1;
+
+	/** The pack built with the game, null if there isn't one */
+	private static SpritePack shared;
+	/** True once the pack built with the game has been looked for */
+	private static boolean sharedLoaded;
+
+	/** The mapping of the whole pack */
+	private MappedByteBuffer buffer;
+	/** The images in the pack, keyed by their classpath reference */
+	private HashMap<String,Entry> entries = new HashMap<>();
+
+	/**
+	 * Get the pack built with the game. The first call maps the pack,
+	 * copying it out to a temporary file first if the game is run from
+	 * a jar.
+	 *
+	 * @return The pack built with the game, null if there is none or it can't be read
+	 */
+	public static synchronized SpritePack get() {
+		if (!sharedLoaded) {
+			sharedLoaded = true;
+
+			try {
+				shared = open(RESOURCE);
+			} catch (IOException e) {
+				System.err.println("Unable to read sprite pack, loading sprites from their images: "+e);
+			}
+		}
+
+		return shared;
+	}
+
+	/**
+	 * Map a pack found on the classpath
+	 *
+	 * @param ref The classpath reference of the pack
+	 * @return The pack, null if there is no such resource
+	 * @throws IOException Indicates a failure to read the pack
+	 */
+	private static SpritePack open(String ref) throws IOException {
+		URL url = SpritePack.class.getClassLoader().getResource(ref);
+
+		if (url == null) {
+			return null;
+		}
+
+		if ("file".equals(url.getProtocol())) {
+			try {
+				return new SpritePack(Paths.get(url.toURI()));
+			} catch (URISyntaxException e) {
+				throw new IOException("Bad location for sprite pack: "+url,e);
+			}
+		}
+
+		// only a file can be mapped, so a pack inside a jar is copied out once
+		Path copy = Files.createTempFile("sprites",".pack");
+		copy.toFile().deleteOnExit();
+		try (InputStream in = url.openStream()) {
+			Files.copy(in,copy,StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		return new SpritePack(copy);
+	}
+
+	/**
+	 * Map a pack and read its index
+	 *
+	 * @param file The pack file to map
+	 * @throws IOException Indicates a failure to read the pack or that it isn't a sprite pack
+	 */
+	public SpritePack(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file,StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY,0,channel.size());
+		}
+
+		if ((buffer.getInt() != MAGIC) || (buffer.getInt() != VERSION)) {
+			throw new IOException("Not a sprite pack: "+file);
+		}
+
+		int count = buffer.getInt();
+		for (int i=0;i<count;i++) {
+			byte[] name = new byte[buffer.getShort() & 0xffff];
+			buffer.get(name);
+
+			Entry entry = new Entry(buffer.getInt(),buffer.getInt(),buffer.getInt(),buffer.getInt(),buffer.getInt());
+			entries.put(new String(name,StandardCharsets.UTF_8),entry);
+		}
+	}
+
+	/**
+	 * Get an image from the pack
+	 *
+	 * @param ref The classpath reference of the image, e.g. "sprites/ship.gif"
+	 * @return The image, null if it isn't in the pack
+	 */
+	public Entry getEntry(String ref) {
+		return entries.get(ref);
+	}
+
+	/**
+	 * Get the number of images in the pack
+	 *
+	 * @return The number of images in the pack
+	 */
+	public int getEntryCount() {
+		return entries.size();
+	}
+
+	/**
+	 * A single image in the pack
+	 */
+	public class Entry {
+		/** The width of the image */
+		private int width;
+		/** The height of the image */
+		private int height;
+		/** The width of the texture data */
+		private int textureWidth;
+		/** The height of the texture data */
+		private int textureHeight;
+		/** The offset of the texture data from the start of the pack */
+		private int offset;
+
+		/**
+		 * Create a new entry
+		 *
+		 * @param width The width of the image
+		 * @param height The height of the image
+		 * @param textureWidth The width of the texture data
+		 * @param textureHeight The height of the texture data
+		 * @param offset The offset of the texture data from the start of the pack
+		 */
+		private Entry(int width,int height,int textureWidth,int textureHeight,int offset) {
+			this.width = width;
+			this.height = height;
+			this.textureWidth = textureWidth;
+			this.textureHeight = textureHeight;
+			this.offset = offset;
+		}
+
+		/**
+		 * Get the width of the image
+		 *
+		 * @return The width of the image in pixels
+		 */
+		public int getWidth() {
+			return width;
+		}
+
+		/**
+		 * Get the height of the image
+		 *
+		 * @return The height of the image in pixels
+		 */
+		public int getHeight() {
+			return height;
+		}
+
+		/**
+		 * Get the width of the texture data, the width of the image
+		 * rounded up to a power of two
+		 *
+		 * @return The width of the texture data in pixels
+		 */
+		public int getTextureWidth() {
+			return textureWidth;
+		}
+
+		/**
+		 * Get the height of the texture data, the height of the image
+		 * rounded up to a power of two
+		 *
+		 * @return The height of the texture data in pixels
+		 */
+		public int getTextureHeight() {
+			return textureHeight;
+		}
+
+		/**
+		 * Get the texture data of the image, a view of the mapped pack
+		 * rather than a copy. The image sits in the top left corner.
+		 *
+		 * @return The RGBA texture data of the image
+		 */
+		public ByteBuffer getData() {
+			ByteBuffer data = buffer.duplicate();
+			data.position(offset);
+			data.limit(offset + (textureWidth * textureHeight * 4));
+
+			return data.slice();
+		}
+
+		/**
+		 * Build the collision mask of the image from its alpha
+		 *
+		 * @return The collision mask of the image
+		 */
+		public CollisionMask createCollisionMask() {
+			return CollisionMask.fromRGBA(getData(),width,height,textureWidth);
+		}
+	}
+}
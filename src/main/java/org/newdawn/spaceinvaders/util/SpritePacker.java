@@ -0,0 +1,166 @@
+package org.newdawn.spaceinvaders.util;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
+import java.awt.image.WritableRaster;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Hashtable;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Packs the sprite images into a single file of texture data, run as part
+ * of the build so that the game never has to decode an image when it
+ * starts. Each image is drawn into RGBA data padded out to a power of two
+ * in each direction, exactly as the texture loaders would have converted
+ * it, and the results are written one after the other behind an index.
+ * See SpritePack for the layout.
+ */
+public class SpritePacker {
+	/** The classpath directory the images are referenced from */
+	private static final String PREFIX = "sprites/";
+
+	/** The colour model of the RGBA texture data */
+	private static final ComponentColorModel RGBA = new ComponentColorModel(ColorSpace.getInstance(ColorSpace.CS_sRGB),
+			new int[] {8,8,8,8},true,false,ComponentColorModel.TRANSLUCENT,DataBuffer.TYPE_BYTE);
+
+	/**
+	 * An image converted into texture data
+	 */
+	private static class PackedImage {
+		/** The classpath reference of the image */
+		private byte[] name;
+		/** The width of the image */
+		private int width;
+		/** The height of the image */
+		private int height;
+		/** The width of the texture data */
+		private int textureWidth;
+		/** The height of the texture data */
+		private int textureHeight;
+		/** The RGBA texture data */
+		private byte[] data;
+	}
+
+	/**
+	 * Convert an image into power of two RGBA texture data
+	 *
+	 * @param file The image file to convert
+	 * @return The converted image
+	 * @throws IOException Indicates a failure to read the image
+	 */
+	private static PackedImage convert(File file) throws IOException {
+		BufferedImage image = ImageIO.read(file);
+		if (image == null) {
+			throw new IOException("Unable to decode image: "+file);
+		}
+
+		PackedImage packed = new PackedImage();
+		packed.name = (PREFIX+file.getName()).getBytes(StandardCharsets.UTF_8);
+		packed.width = image.getWidth();
+		packed.height = image.getHeight();
+		packed.textureWidth = get2Fold(packed.width);
+		packed.textureHeight = get2Fold(packed.height);
+
+		WritableRaster raster = Raster.createInterleavedRaster(DataBuffer.TYPE_BYTE,packed.textureWidth,packed.textureHeight,4,null);
+		BufferedImage texImage = new BufferedImage(RGBA,raster,false,new Hashtable<>());
+
+		Graphics g = texImage.getGraphics();
+		g.setColor(new Color(0f,0f,0f,0f));
+		g.fillRect(0,0,packed.textureWidth,packed.textureHeight);
+		g.drawImage(image,0,0,null);
+		g.dispose();
+
+		packed.data = ((DataBufferByte) raster.getDataBuffer()).getData();
+
+		return packed;
+	}
+
+	/**
+	 * Get the closest greater power of 2 to the fold number
+	 *
+	 * @param fold The target number
+	 * @return The power of 2
+	 */
+	private static int get2Fold(int fold) {
+		int ret = 2;
+		while (ret < fold) {
+			ret *= 2;
+		}
+		return ret;
+	}
+
+	/**
+	 * Pack all the GIF images in a directory
+	 *
+	 * @param directory The directory holding the images
+	 * @param pack The pack file to write
+	 * @throws IOException Indicates a failure to read an image or write the pack
+	 */
+	public static void pack(File directory,File pack) throws IOException {
+		File[] files = directory.listFiles((dir,name) -> name.endsWith(".gif"));
+		if (files == null) {
+			throw new IOException("Not a directory: "+directory);
+		}
+		Arrays.sort(files);
+
+		List<PackedImage> images = new ArrayList<>();
+		int indexSize = 12;
+		for (File file : files) {
+			PackedImage image = convert(file);
+			images.add(image);
+			indexSize += 2 + image.name.length + 20;
+		}
+
+		pack.getParentFile().mkdirs();
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(pack)))) {
+			out.writeInt(SpritePack.MAGIC);
+			out.writeInt(SpritePack.VERSION);
+			out.writeInt(images.size());
+
+			int offset = indexSize;
+			for (PackedImage image : images) {
+				out.writeShort(image.name.length);
+				out.write(image.name);
+				out.writeInt(image.width);
+				out.writeInt(image.height);
+				out.writeInt(image.textureWidth);
+				out.writeInt(image.textureHeight);
+				out.writeInt(offset);
+				offset += image.data.length;
+			}
+			for (PackedImage image : images) {
+				out.write(image.data);
+			}
+		}
+	}
+
+	/**
+	 * Entry point to the packer
+	 *
+	 * @param argv The arguments passed on the command line, the directory of images and the pack file to write
+	 * @throws IOException Indicates a failure to read an image or write the pack
+	 */
+	public static void main(String argv[]) throws IOException {
+		if (argv.length != 2) {
+			System.err.println("Usage: SpritePacker <image directory> <pack file>");
+			System.exit(1);
+		}
+
+		pack(new File(argv[0]),new File(argv[1]));
+	}
+}
@@ -0,0 +1,203 @@
+package org.newdawn.spaceinvaders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks that the collision grid reports exactly the same collisions, in
+ * exactly the same order, as the brute force loop it replaced.
+ */
+public class CollisionGridTest {
+	/** The number of random layouts checked for each cell size */
+	private static final int LAYOUTS = 200;
+
+	/** The factory the test entities take their sprite from */
+	private static ResourceFactory factory;
+
+	/**
+	 * An entity that records every collision it is told about
+	 */
+	private static class RecordingEntity extends Entity {
+		/** The number of this entity in its layout */
+		private int id;
+		/** The collisions recorded by every entity in the layout, as "me,him" */
+		private List<String> log;
+
+		/**
+		 * Create a new entity
+		 *
+		 * @param id The number of this entity in its layout
+		 * @param log The collisions recorded by every entity in the layout
+		 */
+		RecordingEntity(int id,List<String> log) {
+			super("sprites/shot.gif",0,0);
+			this.id = id;
+			this.log = log;
+		}
+
+		/**
+		 * Record the collision
+		 *
+		 * @param other The entity with which this entity collided
+		 */
+		public void collidedWith(Entity other) {
+			log.add(id+","+((RecordingEntity) other).id);
+		}
+	}
+
+	/**
+	 * Make a headless factory current so entities can be created without
+	 * a display
+	 */
+	@BeforeClass
+	public static void setUpFactory() {
+		factory = new ResourceFactory();
+		factory.setRenderingType(ResourceFactory.HEADLESS);
+		factory.getGameWindow();
+		ResourceFactory.setCurrent(factory);
+	}
+
+	/**
+	 * Go back to the shared factory
+	 */
+	@AfterClass
+	public static void tearDownFactory() {
+		ResourceFactory.setCurrent(null);
+	}
+
+	/**
+	 * Build a random layout of entities. Most are scattered over and
+	 * around the screen, including negative coordinates, some are large
+	 * enough to straddle several cells, some sit exactly on cell edges and
+	 * some have no width or no height.
+	 *
+	 * @param seed The seed of the layout
+	 * @param cellSize The size of the grid cells, used to place entities on cell edges
+	 * @param log The list the entities record their collisions in
+	 * @return The entities of the layout
+	 */
+	private static List<Entity> layout(long seed,int cellSize,List<String> log) {
+		Random random = new Random(seed);
+		int count = 1 + random.nextInt(150);
+		List<Entity> entities = new ArrayList<>(count);
+
+		for (int i=0;i<count;i++) {
+			RecordingEntity entity = new RecordingEntity(i,log);
+			double x = -300 + (random.nextDouble() * 1200);
+			double y = -300 + (random.nextDouble() * 1000);
+			int width = 1 + random.nextInt(48);
+			int height = 1 + random.nextInt(48);
+
+			switch (random.nextInt(8)) {
+				case 0:
+					width = 0;
+					break;
+				case 1:
+					height = 0;
+					break;
+				case 2:
+					width = cellSize + random.nextInt(3 * cellSize);
+					height = cellSize + random.nextInt(3 * cellSize);
+					break;
+				case 3:
+					x = (random.nextInt(20) - 8) * cellSize - (width / 2);
+					y = (random.nextInt(20) - 8) * cellSize - (height / 2);
+					break;
+				default:
+					break;
+			}
+
+			entity.setLocation(x,y);
+			entity.width = width;
+			entity.height = height;
+			entities.add(entity);
+		}
+
+		return entities;
+	}
+
+	/**
+	 * Resolve collisions the way the game did before the grid
+	 *
+	 * @param entities The entities to resolve collisions between
+	 */
+	private static void bruteForce(List<Entity> entities) {
+		for (int p=0;p<entities.size();p++) {
+			for (int s=p+1;s<entities.size();s++) {
+				Entity me = entities.get(p);
+				Entity him = entities.get(s);
+
+				if (me.collidesWith(him)) {
+					me.collidedWith(him);
+					him.collidedWith(me);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Check the grid against the brute force loop for entities held in
+	 * a list and in an entity store
+	 *
+	 * @param cellSize The size of the grid cells
+	 */
+	private static void checkAgainstBruteForce(int cellSize) {
+		CollisionGrid grid = new CollisionGrid(cellSize);
+		boolean collided = false;
+
+		for (long seed=0;seed<LAYOUTS;seed++) {
+			List<String> expected = new ArrayList<>();
+			bruteForce(layout(seed,cellSize,expected));
+
+			List<String> fromList = new ArrayList<>();
+			grid.resolve(layout(seed,cellSize,fromList));
+			assertEquals("List layout "+seed,expected,fromList);
+
+			List<String> fromStore = new ArrayList<>();
+			EntityStore store = new EntityStore();
+			for (Entity entity : layout(seed,cellSize,fromStore)) {
+				store.add(entity);
+			}
+			grid.resolve(store);
+			assertEquals("Store layout "+seed,expected,fromStore);
+
+			collided |= !expected.isEmpty();
+		}
+
+		// make sure the layouts actually exercised something
+		assertTrue("No layout had any collisions",collided);
+	}
+
+	/**
+	 * Check the grid with the cell size the game uses
+	 */
+	@Test
+	public void matchesBruteForceWithDefaultCells() {
+		checkAgainstBruteForce(CollisionGrid.DEFAULT_CELL_SIZE);
+	}
+
+	/**
+	 * Check the grid with cells small enough that most entities straddle
+	 * several of them
+	 */
+	@Test
+	public void matchesBruteForceWithSmallCells() {
+		checkAgainstBruteForce(8);
+	}
+
+	/**
+	 * Check the grid with cells larger than the screen
+	 */
+	@Test
+	public void matchesBruteForceWithLargeCells() {
+		checkAgainstBruteForce(1024);
+	}
+}
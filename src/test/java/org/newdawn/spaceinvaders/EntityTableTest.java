@@ -0,0 +1,209 @@
+package org.newdawn.spaceinvaders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Checks the entity table's handles, its swap-remove and its two step
+ * removal, and that it gives pooled entities back to their pool.
+ */
+public class EntityTableTest {
+	/** The factory the test entities take their sprite from */
+	private static ResourceFactory factory;
+
+	/**
+	 * An entity that counts the notifications it receives
+	 */
+	private static class CountingEntity extends Entity {
+		/** The number of times the entity has been removed from a table */
+		private int removedCount;
+		/** The number of times the entity has been given back to its pool */
+		private int releasedCount;
+
+		/**
+		 * Create a new entity
+		 *
+		 * @param x The x location of the entity
+		 */
+		CountingEntity(int x) {
+			super("sprites/shot.gif",x,0);
+		}
+
+		/**
+		 * Collisions aren't of interest here
+		 *
+		 * @param other The entity with which this entity collided
+		 */
+		public void collidedWith(Entity other) {
+		}
+
+		/**
+		 * Count the removal
+		 */
+		protected void removed() {
+			removedCount++;
+		}
+
+		/**
+		 * Count the release
+		 */
+		protected void released() {
+			releasedCount++;
+		}
+	}
+
+	/**
+	 * Make a headless factory current so entities can be created without
+	 * a display
+	 */
+	@BeforeClass
+	public static void setUpFactory() {
+		factory = new ResourceFactory();
+		factory.setRenderingType(ResourceFactory.HEADLESS);
+		factory.getGameWindow();
+		ResourceFactory.setCurrent(factory);
+	}
+
+	/**
+	 * Go back to the shared factory
+	 */
+	@AfterClass
+	public static void tearDownFactory() {
+		ResourceFactory.setCurrent(null);
+	}
+
+	/**
+	 * A handle kept after its entity has gone must not refer to the new
+	 * entity given the same slot
+	 */
+	@Test
+	public void staleHandleRejectedAfterSlotReused() {
+		EntityTable table = new EntityTable();
+		CountingEntity first = new CountingEntity(0);
+		long stale = table.addEntity(first);
+
+		assertTrue(table.markForRemoval(first));
+		assertEquals(1,table.removeMarked());
+		assertEquals(EntityTable.NO_HANDLE,first.handle);
+
+		CountingEntity second = new CountingEntity(10);
+		long fresh = table.addEntity(second);
+
+		// the freed slot is handed out again, only the generation differs
+		assertEquals((int) stale,(int) fresh);
+		assertFalse(stale == fresh);
+		assertFalse(table.isValid(stale));
+		assertNull(table.resolve(stale));
+		assertTrue(table.isValid(fresh));
+		assertSame(second,table.resolve(fresh));
+
+		// marking through a stale entity reference does nothing either
+		assertFalse(table.markForRemoval(first));
+		assertEquals(0,table.removeMarked());
+		assertEquals(1,table.size());
+	}
+
+	/**
+	 * Marking an entity twice in the same step removes it only once
+	 */
+	@Test
+	public void markingTwiceRemovesOnce() {
+		EntityTable table = new EntityTable();
+		CountingEntity a = new CountingEntity(0);
+		CountingEntity b = new CountingEntity(10);
+		CountingEntity c = new CountingEntity(20);
+		table.addEntity(a);
+		table.addEntity(b);
+		table.addEntity(c);
+
+		assertTrue(table.markForRemoval(b));
+		assertFalse(table.markForRemoval(b));
+		assertTrue(table.isMarkedForRemoval(b));
+
+		assertEquals(1,table.removeMarked());
+		assertEquals(1,b.removedCount);
+		assertEquals(2,table.size());
+		assertFalse(table.isMarkedForRemoval(b));
+		assertEquals(0,a.removedCount);
+		assertEquals(0,c.removedCount);
+
+		// nothing is left pending for the next step
+		assertEquals(0,table.removeMarked());
+		assertEquals(2,table.size());
+	}
+
+	/**
+	 * Removing an entity moves the last entity into its place, and keeps
+	 * the store in step with the table
+	 */
+	@Test
+	public void removalMovesLastEntityIntoGap() {
+		EntityStore store = new EntityStore();
+		EntityTable table = new EntityTable(store);
+		CountingEntity a = new CountingEntity(0);
+		CountingEntity b = new CountingEntity(10);
+		CountingEntity c = new CountingEntity(20);
+		table.addEntity(a);
+		long handleB = table.addEntity(b);
+		long handleC = table.addEntity(c);
+
+		table.markForRemoval(a);
+		table.removeMarked();
+
+		assertEquals(2,table.size());
+		assertSame(c,table.get(0));
+		assertSame(b,table.get(1));
+		assertSame(c,table.resolve(handleC));
+		assertSame(b,table.resolve(handleB));
+
+		// the store's slots match the table's indices, with the moved
+		// entity keeping its state
+		assertEquals(2,store.size());
+		assertSame(c,store.getEntity(0));
+		assertSame(b,store.getEntity(1));
+		assertEquals(20,c.getX());
+		assertEquals(10,b.getX());
+	}
+
+	/**
+	 * Clearing the table gives pooled entities back to their pool and
+	 * leaves every handle stale
+	 */
+	@Test
+	public void clearReturnsPooledEntitiesToPool() {
+		EntityPool<CountingEntity> pool = new EntityPool<>(() -> new CountingEntity(0),8);
+		EntityTable table = new EntityTable();
+		CountingEntity[] entities = new CountingEntity[3];
+		long[] handles = new long[entities.length];
+
+		for (int i=0;i<entities.length;i++) {
+			entities[i] = pool.acquire();
+			handles[i] = table.addEntity(entities[i]);
+		}
+		table.addEntity(new CountingEntity(50));
+		assertEquals(0,pool.getFreeCount());
+
+		table.clear();
+
+		assertEquals(0,table.size());
+		assertEquals(entities.length,pool.getFreeCount());
+		for (int i=0;i<entities.length;i++) {
+			assertEquals(1,entities[i].removedCount);
+			assertEquals(1,entities[i].releasedCount);
+			assertEquals(EntityTable.NO_HANDLE,entities[i].handle);
+			assertFalse(table.isValid(handles[i]));
+		}
+
+		// the pool hands the same entities out again
+		assertEquals(entities.length,pool.getCreatedCount());
+		pool.acquire();
+		assertEquals(entities.length,pool.getCreatedCount());
+	}
+}
@@ -0,0 +1,131 @@
+package org.newdawn.spaceinvaders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.newdawn.spaceinvaders.headless.HeadlessGameWindow;
+
+/**
+ * Checks that a game played back from a recording ends up in exactly the
+ * same state as the game the recording was made from.
+ */
+public class InputReplayTest {
+	/** The number of steps played in the recorded game */
+	private static final int STEPS = 4000;
+	/** The usual length of a logic step (ms) */
+	private static final long TICK_LENGTH = 10;
+
+	/** The folder the recordings are written to */
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/**
+	 * Create a headless game that has been initialised but isn't running,
+	 * so the test can drive its logic. Each game gets a factory, and so a
+	 * window, of its own.
+	 *
+	 * @return The new game
+	 */
+	private static Game newGame() {
+		ResourceFactory factory = new ResourceFactory();
+		factory.setRenderingType(ResourceFactory.HEADLESS);
+		((HeadlessGameWindow) factory.getGameWindow()).setMaxFrames(0);
+		ResourceFactory.setCurrent(factory);
+
+		return new Game(ResourceFactory.HEADLESS,"replay-test",true);
+	}
+
+	/**
+	 * Go back to the shared factory
+	 */
+	@After
+	public void tearDownFactory() {
+		ResourceFactory.setCurrent(null);
+	}
+
+	/**
+	 * Play a game with keys held for random lengths of time, recording
+	 * each step, then replay the recording into a fresh game
+	 *
+	 * @throws IOException Indicates a failure to write or read the recording
+	 */
+	@Test
+	public void replayMatchesRecordedGame() throws IOException {
+		Path file = folder.newFile("session.rec").toPath();
+		Random random = new Random(42);
+		Game recorded = newGame();
+		long initial = recorded.checksum();
+		InputRecorder recorder = new InputRecorder(file);
+		int keys = 0;
+		int held = 0;
+
+		for (int i=0;i<STEPS;i++) {
+			if (held == 0) {
+				keys = random.nextInt(InputRecorder.KEY_ESCAPE);
+				held = 1 + random.nextInt(8);
+			}
+			held--;
+
+			// mostly fixed steps, with the odd long one as a slow
+			// frame would give
+			long delta = (random.nextInt(20) == 0) ? 11 + random.nextInt(40) : TICK_LENGTH;
+
+			recorder.record(keys,delta);
+			recorded.tick(delta,keys);
+		}
+
+		// playback stops at escape, so nothing after it is played
+		recorder.record(InputRecorder.KEY_ESCAPE,TICK_LENGTH);
+		recorder.record(InputRecorder.KEY_FIRE,TICK_LENGTH);
+		recorder.close();
+		assertEquals(STEPS + 2,recorder.getStepCount());
+
+		Game replayed = newGame();
+		assertEquals(initial,replayed.checksum());
+
+		long steps = new InputReplay(file).play(replayed);
+
+		assertEquals(STEPS,steps);
+		assertFalse("The recorded game didn't change",initial == recorded.checksum());
+		assertEquals(recorded.checksum(),replayed.checksum());
+	}
+
+	/**
+	 * Runs of the same input longer than the log can hold in one run are
+	 * split, and read back as the same steps
+	 *
+	 * @throws IOException Indicates a failure to write or read the recording
+	 */
+	@Test
+	public void longRunsReadBackInFull() throws IOException {
+		Path file = folder.newFile("long.rec").toPath();
+		InputRecorder recorder = new InputRecorder(file);
+		int steps = InputRecorder.MAX_UNSIGNED_SHORT + 10;
+
+		for (int i=0;i<steps;i++) {
+			recorder.record(InputRecorder.KEY_LEFT,TICK_LENGTH);
+		}
+		recorder.record(InputRecorder.KEY_RIGHT,TICK_LENGTH + 1);
+		recorder.close();
+
+		InputReplay replay = new InputReplay(file);
+		for (int i=0;i<steps;i++) {
+			assertTrue(replay.next());
+			assertEquals(InputRecorder.KEY_LEFT,replay.getKeys());
+			assertEquals(TICK_LENGTH,replay.getDelta());
+		}
+		assertTrue(replay.next());
+		assertEquals(InputRecorder.KEY_RIGHT,replay.getKeys());
+		assertEquals(TICK_LENGTH + 1,replay.getDelta());
+		assertFalse(replay.next());
+	}
+}
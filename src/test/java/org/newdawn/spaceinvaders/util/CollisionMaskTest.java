@@ -0,0 +1,161 @@
+package org.newdawn.spaceinvaders.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks the word shifting overlap test of collision masks against a
+ * pixel by pixel comparison.
+ */
+public class CollisionMaskTest {
+	/** The number of random pairs of masks checked */
+	private static final int PAIRS = 300;
+	/** Widths around the 64 pixel word boundary, picked more often than the rest */
+	private static final int[] EDGE_WIDTHS = {1,63,64,65,127,128,129,200};
+
+	/**
+	 * Build a mask with random solid pixels
+	 *
+	 * @param random The source of the pixels
+	 * @param width The width of the mask
+	 * @param height The height of the mask
+	 * @param density The chance of each pixel being solid
+	 * @return The new mask
+	 */
+	private static CollisionMask randomMask(Random random,int width,int height,double density) {
+		CollisionMask mask = new CollisionMask(width,height);
+
+		for (int y=0;y<height;y++) {
+			for (int x=0;x<width;x++) {
+				if (random.nextDouble() < density) {
+					mask.set(x,y);
+				}
+			}
+		}
+
+		return mask;
+	}
+
+	/**
+	 * Pick a width for a random mask
+	 *
+	 * @param random The source of the width
+	 * @return A width, often one near a word boundary
+	 */
+	private static int randomWidth(Random random) {
+		if (random.nextBoolean()) {
+			return EDGE_WIDTHS[random.nextInt(EDGE_WIDTHS.length)];
+		}
+
+		return 1 + random.nextInt(200);
+	}
+
+	/**
+	 * Check for overlapping solid pixels one pixel at a time
+	 *
+	 * @param a The first mask
+	 * @param b The second mask
+	 * @param dx The x location of the second mask relative to the first
+	 * @param dy The y location of the second mask relative to the first
+	 * @return True if any solid pixels overlap
+	 */
+	private static boolean bruteForce(CollisionMask a,CollisionMask b,int dx,int dy) {
+		for (int y=0;y<a.getHeight();y++) {
+			for (int x=0;x<a.getWidth();x++) {
+				if (a.isSet(x,y) && b.isSet(x - dx,y - dy)) {
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Check a pair of masks at every offset where their bounds overlap,
+	 * and a little beyond
+	 *
+	 * @param a The first mask
+	 * @param b The second mask
+	 * @param label The description of the pair for failures
+	 */
+	private static void checkAllOffsets(CollisionMask a,CollisionMask b,String label) {
+		for (int dy=-b.getHeight()-1;dy<=a.getHeight()+1;dy++) {
+			for (int dx=-b.getWidth()-2;dx<=a.getWidth()+2;dx++) {
+				assertEquals(label+" at "+dx+","+dy,bruteForce(a,b,dx,dy),a.overlaps(b,dx,dy));
+			}
+		}
+	}
+
+	/**
+	 * Compare random masks of random sizes, including masks more than a
+	 * word wide, at every offset both ways round
+	 */
+	@Test
+	public void matchesBruteForce() {
+		Random random = new Random(1234);
+
+		for (int i=0;i<PAIRS;i++) {
+			// sparse masks, so that most offsets don't overlap
+			double density = (i % 3 == 0) ? 0.02 : 0.2;
+			CollisionMask a = randomMask(random,randomWidth(random),1 + random.nextInt(6),density);
+			CollisionMask b = randomMask(random,randomWidth(random),1 + random.nextInt(6),density);
+
+			checkAllOffsets(a,b,"Pair "+i);
+		}
+	}
+
+	/**
+	 * Single pixels either side of the word boundary, which only meet
+	 * through the spill over from one word to the next
+	 */
+	@Test
+	public void pixelsAcrossWordBoundary() {
+		CollisionMask wide = new CollisionMask(130,1);
+		wide.set(63,0);
+		wide.set(64,0);
+		wide.set(128,0);
+		CollisionMask dot = new CollisionMask(1,1);
+		dot.set(0,0);
+
+		assertTrue(wide.overlaps(dot,63,0));
+		assertTrue(wide.overlaps(dot,64,0));
+		assertFalse(wide.overlaps(dot,65,0));
+		assertFalse(wide.overlaps(dot,127,0));
+		assertTrue(wide.overlaps(dot,128,0));
+		assertFalse(wide.overlaps(dot,129,0));
+		assertTrue(dot.overlaps(wide,-63,0));
+		assertTrue(dot.overlaps(wide,-128,0));
+		assertFalse(dot.overlaps(wide,-65,0));
+
+		// a wide pixel pair shifted so one lands either side of a word
+		CollisionMask pair = new CollisionMask(2,1);
+		pair.set(0,0);
+		pair.set(1,0);
+		assertTrue(wide.overlaps(pair,62,0));
+		assertFalse(wide.overlaps(pair,65,0));
+		assertTrue(pair.overlaps(wide,-64,0));
+	}
+
+	/**
+	 * Masks only overlap on the rows they share
+	 */
+	@Test
+	public void rowsMustLineUp() {
+		CollisionMask top = new CollisionMask(70,3);
+		top.set(66,0);
+		CollisionMask bottom = new CollisionMask(70,3);
+		bottom.set(66,2);
+
+		assertFalse(top.overlaps(bottom,0,0));
+		assertTrue(top.overlaps(bottom,0,-2));
+		assertTrue(bottom.overlaps(top,0,2));
+		assertFalse(top.overlaps(bottom,0,-1));
+		assertFalse(top.overlaps(bottom,0,-3));
+	}
+}
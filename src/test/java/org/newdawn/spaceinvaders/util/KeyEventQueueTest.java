@@ -0,0 +1,157 @@
+package org.newdawn.spaceinvaders.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.event.KeyEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Checks that the key event queue hands events over in order as its
+ * positions wrap round the ring, and what happens once it is full.
+ */
+public class KeyEventQueueTest {
+	/**
+	 * A handler that records the events drained, as "code,pressed,time"
+	 */
+	private static class RecordingHandler implements KeyEventQueue.Handler {
+		/** The events drained so far */
+		private List<String> events = new ArrayList<>();
+
+		/**
+		 * Record the event
+		 *
+		 * @param keyCode The code of the key (defined in KeyEvent)
+		 * @param pressed True if the key was pressed, false if it was released
+		 * @param time The time the event was received (System.nanoTime())
+		 */
+		public void keyEvent(int keyCode,boolean pressed,long time) {
+			events.add(describe(keyCode,pressed,time));
+		}
+	}
+
+	/**
+	 * Describe an event the way the recording handler does
+	 *
+	 * @param keyCode The code of the key
+	 * @param pressed True if the key was pressed
+	 * @param time The time the event was received
+	 * @return The description of the event
+	 */
+	private static String describe(int keyCode,boolean pressed,long time) {
+		return keyCode+","+pressed+","+time;
+	}
+
+	/**
+	 * Offer and drain batches of every size up to the capacity, so the
+	 * positions wrap round the ring many times, at every slot
+	 */
+	@Test
+	public void eventsStayInOrderAcrossWrapAround() {
+		KeyEventQueue queue = new KeyEventQueue(8);
+		Random random = new Random(7);
+		long time = 0;
+
+		for (int round=0;round<500;round++) {
+			int count = 1 + random.nextInt(8);
+			List<String> expected = new ArrayList<>();
+
+			for (int i=0;i<count;i++) {
+				int keyCode = random.nextInt(1024);
+				boolean pressed = random.nextBoolean();
+
+				time++;
+				assertTrue(queue.offer(keyCode,pressed,time));
+				expected.add(describe(keyCode,pressed,time));
+			}
+
+			RecordingHandler handler = new RecordingHandler();
+			assertEquals(count,queue.drain(handler));
+			assertEquals("Round "+round,expected,handler.events);
+		}
+
+		assertEquals(0,queue.drain(new RecordingHandler()));
+		assertEquals(0,queue.getDroppedCount());
+	}
+
+	/**
+	 * A full ring drops the newest events and keeps the ones already
+	 * waiting, and takes events again once it has been drained
+	 */
+	@Test
+	public void fullRingDropsNewestEvents() {
+		KeyEventQueue queue = new KeyEventQueue(4);
+
+		// move the positions part way round first, so the full ring
+		// wraps past the end of the arrays
+		queue.offer(1,true,1);
+		queue.offer(2,true,2);
+		queue.offer(3,true,3);
+		queue.drain(new RecordingHandler());
+
+		for (int i=0;i<4;i++) {
+			assertTrue(queue.offer(10 + i,true,10 + i));
+		}
+		assertFalse(queue.offer(20,false,20));
+		assertFalse(queue.offer(21,false,21));
+		assertEquals(2,queue.getDroppedCount());
+
+		RecordingHandler handler = new RecordingHandler();
+		assertEquals(4,queue.drain(handler));
+		for (int i=0;i<4;i++) {
+			assertEquals(describe(10 + i,true,10 + i),handler.events.get(i));
+		}
+
+		assertTrue(queue.offer(30,false,30));
+		handler = new RecordingHandler();
+		assertEquals(1,queue.drain(handler));
+		assertEquals(describe(30,false,30),handler.events.get(0));
+		assertEquals(2,queue.getDroppedCount());
+	}
+
+	/**
+	 * The capacity is rounded up to a power of two
+	 */
+	@Test
+	public void capacityRoundedUpToPowerOfTwo() {
+		KeyEventQueue queue = new KeyEventQueue(5);
+
+		for (int i=0;i<8;i++) {
+			assertTrue(queue.offer(i,true,i));
+		}
+		assertFalse(queue.offer(8,true,8));
+	}
+
+	/**
+	 * The keyboard keeps the state the events that fitted in its queue
+	 * left the keys in, so a dropped release leaves the key pressed
+	 */
+	@Test
+	public void keyboardKeepsKeyHeldWhenReleaseDropped() {
+		Keyboard keyboard = new Keyboard();
+
+		keyboard.setPressed(KeyEvent.VK_LEFT,true);
+		for (int i=1;i<1024;i++) {
+			keyboard.setPressed(KeyEvent.VK_SPACE,(i % 2) != 0);
+		}
+		keyboard.setPressed(KeyEvent.VK_LEFT,false);
+		assertEquals(1,keyboard.getDroppedCount());
+
+		keyboard.poll();
+		assertTrue(keyboard.isPressed(KeyEvent.VK_LEFT));
+
+		// the next poll no longer counts the held key, but its state stays
+		keyboard.poll();
+		assertTrue(keyboard.isPressed(KeyEvent.VK_LEFT));
+
+		keyboard.setPressed(KeyEvent.VK_LEFT,false);
+		keyboard.poll();
+		keyboard.poll();
+		assertFalse(keyboard.isPressed(KeyEvent.VK_LEFT));
+	}
+}